@@ -24,7 +24,7 @@ public class JavaBase64 {
 		
 		System.out.println(System.currentTimeMillis() - ts);
 		
-		MyBase64Tools.writeToTextFile(fileCodePath, sCode);
+		MyBase64Tools.writeToAsciiFile(fileCodePath, sCode); // the Base64 characters are pure ASCII
 		MyBase64Tools.writeToBinFile(fileDecodePath, result);
 		
 	}
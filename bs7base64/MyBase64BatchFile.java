@@ -0,0 +1,304 @@
+package bs7base64;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Performance test for a base 64 encoding and decoding of all files of a directory tree.
+ * Every file is converted by its own task. On Java 21 and later the tasks run on virtual
+ * threads, otherwise on a pool of platform threads, so the time one file waits for opening,
+ * writing and syncing is used to convert other files. The number of bytes of the files that
+ * are converted at the same time is bounded, the directory is only read as far as this bound
+ * allows. Each output file is written to a temporary file first, which is synced and then
+ * renamed, so an output file is either complete or not there at all.
+ */
+public class MyBase64BatchFile {
+	/**
+	 * Default number of input bytes that are converted at the same time.
+	 */
+	public static final int MAX_IN_FLIGHT = 64 * 1024 * 1024;
+	/**
+	 * Extension of the encoded files.
+	 */
+	public static final String EXTENSION = ".txt";
+
+	public static void main(String[] args) throws IOException {
+		String path = "C:\\tmp\\";
+		String dirOrigPath = path + "batch";
+		String dirCodePath = path + "batch_txt";
+		String dirDecodePath = path + "dec_batch";
+
+		System.out.println(encodeDirectory(dirOrigPath, dirCodePath));
+		System.out.println(decodeDirectory(dirCodePath, dirDecodePath));
+	}
+
+	/**
+	 * Result of a batch conversion.
+	 */
+	public static final class Result {
+		private final long files;
+		private final long bytesIn;
+		private final long bytesOut;
+		private final long millis;
+		private final Map<Path, IOException> failures;
+
+		Result(long files, long bytesIn, long bytesOut, long millis, Map<Path, IOException> failures) {
+			this.files = files;
+			this.bytesIn = bytesIn;
+			this.bytesOut = bytesOut;
+			this.millis = millis;
+			this.failures = Collections.unmodifiableMap(failures);
+		}
+
+		/**
+		 * @return Number of converted files, without the failed ones.
+		 */
+		public long getFiles() {
+			return files;
+		}
+
+		/**
+		 * @return Number of bytes read from the converted files.
+		 */
+		public long getBytesIn() {
+			return bytesIn;
+		}
+
+		/**
+		 * @return Number of bytes written.
+		 */
+		public long getBytesOut() {
+			return bytesOut;
+		}
+
+		/**
+		 * @return Duration of the whole batch in milliseconds.
+		 */
+		public long getMillis() {
+			return millis;
+		}
+
+		/**
+		 * @return Input files which could not be converted with the reason.
+		 */
+		public Map<Path, IOException> getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return Input MB per second.
+		 */
+		public double getMegabytesPerSecond() {
+			return bytesIn / (1024.0 * 1024.0) * 1000 / Math.max(1, millis);
+		}
+
+		/**
+		 * @return Converted files per second.
+		 */
+		public double getFilesPerSecond() {
+			return files * 1000.0 / Math.max(1, millis);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d files (%d failed), %.1f MB in, %.1f MB out, %d ms, %.1f MB/s, %.0f files/s",
+					files, failures.size(), bytesIn / (1024.0 * 1024.0), bytesOut / (1024.0 * 1024.0), millis,
+					getMegabytesPerSecond(), getFilesPerSecond());
+		}
+	}
+
+	/**
+	 * Encodes all files of the directory tree to Base64 text files. The directory structure is
+	 * copied, each output file gets the extension EXTENSION. Existing files will be overwritten.
+	 * @param dirPathIn Root of the binary files.
+	 * @param dirPathOut Root of the generated text files, must not be inside dirPathIn.
+	 * @return Result with the throughput and the files which could not be converted.
+	 * @throws IOException In case the directory can not be read.
+	 */
+	public static Result encodeDirectory(String dirPathIn, String dirPathOut) throws IOException {
+		return encodeDirectory(dirPathIn, dirPathOut, MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * Encodes all files of the directory tree to Base64 text files with the given bound of memory.
+	 * @param dirPathIn Root of the binary files.
+	 * @param dirPathOut Root of the generated text files, must not be inside dirPathIn.
+	 * @param maxInFlight Number of input bytes that are converted at the same time. A larger file
+	 * is converted alone.
+	 * @return Result with the throughput and the files which could not be converted.
+	 * @throws IOException In case the directory can not be read.
+	 */
+	public static Result encodeDirectory(String dirPathIn, String dirPathOut, int maxInFlight) throws IOException {
+		return convertDirectory(Paths.get(dirPathIn), Paths.get(dirPathOut), maxInFlight, MyBase64Simd::encode, true);
+	}
+
+	/**
+	 * Decodes all Base64 text files of the directory tree to binary files. The directory structure
+	 * is copied, the extension EXTENSION is removed. Existing files will be overwritten.
+	 * @param dirPathIn Root of the Base64 text files.
+	 * @param dirPathOut Root of the generated binary files, must not be inside dirPathIn.
+	 * @return Result with the throughput and the files which could not be converted.
+	 * @throws IOException In case the directory can not be read.
+	 */
+	public static Result decodeDirectory(String dirPathIn, String dirPathOut) throws IOException {
+		return decodeDirectory(dirPathIn, dirPathOut, MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * Decodes all Base64 text files of the directory tree to binary files with the given bound of memory.
+	 * @param dirPathIn Root of the Base64 text files.
+	 * @param dirPathOut Root of the generated binary files, must not be inside dirPathIn.
+	 * @param maxInFlight Number of input bytes that are converted at the same time. A larger file
+	 * is converted alone.
+	 * @return Result with the throughput and the files which could not be converted.
+	 * @throws IOException In case the directory can not be read.
+	 */
+	public static Result decodeDirectory(String dirPathIn, String dirPathOut, int maxInFlight) throws IOException {
+		return convertDirectory(Paths.get(dirPathIn), Paths.get(dirPathOut), maxInFlight, MyBase64Simd::decode, false);
+	}
+
+	private static Result convertDirectory(Path rootIn, Path rootOut, int maxInFlight, UnaryOperator<byte[]> converter,
+			boolean encode) throws IOException {
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("The number of bytes in flight must be positive");
+		}
+		if (rootOut.toAbsolutePath().normalize().startsWith(rootIn.toAbsolutePath().normalize())) {
+			throw new IllegalArgumentException("The output directory must not be inside the input directory");
+		}
+		long ts = System.currentTimeMillis();
+		Semaphore inFlight = new Semaphore(maxInFlight); // one permit per byte
+		AtomicLong files = new AtomicLong();
+		AtomicLong bytesIn = new AtomicLong();
+		AtomicLong bytesOut = new AtomicLong();
+		Map<Path, Future<Void>> tasks = new LinkedHashMap<>();
+		Map<Path, IOException> failures = new LinkedHashMap<>();
+
+		ExecutorService executor = newExecutor();
+		// The directory stream is handled with automatic resource management.
+		try (Stream<Path> walk = Files.walk(rootIn)) {
+			Iterator<Path> it = walk.filter(Files::isRegularFile).iterator();
+			while (it.hasNext()) {
+				Path in = it.next();
+				Path out = targetPath(rootIn, rootOut, in, encode);
+				long size;
+				try {
+					size = Files.size(in);
+				} catch (IOException e) { // e.g. deleted since the directory was read
+					failures.put(in, e);
+					continue;
+				}
+				int permits = (int)Math.max(1, Math.min(size, maxInFlight));
+				inFlight.acquire(permits); // blocks the walk while too many bytes are converted
+				try {
+					tasks.put(in, executor.submit(() -> {
+						try {
+							byte[] data = Files.readAllBytes(in);
+							byte[] result;
+							try {
+								result = converter.apply(data);
+							} catch (MyBase64FormatException e) {
+								throw new IOException(e.getMessage(), e);
+							}
+							writeAtomic(out, result);
+							files.incrementAndGet();
+							bytesIn.addAndGet(data.length);
+							bytesOut.addAndGet(result.length);
+						} finally {
+							inFlight.release(permits);
+						}
+						return null;
+					}));
+				} catch (RuntimeException e) {
+					inFlight.release(permits);
+					throw e;
+				}
+			}
+			for (Map.Entry<Path, Future<Void>> task : tasks.entrySet()) {
+				try {
+					task.getValue().get();
+				} catch (ExecutionException e) {
+					// a failed file does not stop the batch, it is reported in the result
+					failures.put(task.getKey(), e.getCause() instanceof IOException ? (IOException)e.getCause() : new IOException(e.getCause()));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Conversion interrupted");
+		} finally {
+			executor.shutdownNow(); // only has tasks left if the batch was stopped by an exception
+		}
+		return new Result(files.get(), bytesIn.get(), bytesOut.get(), System.currentTimeMillis() - ts, failures);
+	}
+
+	/**
+	 * Returns the path of the output file for the input file in.
+	 */
+	private static Path targetPath(Path rootIn, Path rootOut, Path in, boolean encode) {
+		String name = in.getFileName().toString();
+		if (encode) {
+			name += EXTENSION;
+		} else if (name.endsWith(EXTENSION) && name.length() > EXTENSION.length()) {
+			name = name.substring(0, name.length() - EXTENSION.length());
+		}
+		Path dir = rootOut.resolve(rootIn.relativize(in)).getParent();
+		return dir.resolve(name);
+	}
+
+	/**
+	 * Writes the data to a temporary file in the target directory, syncs it to the disk and
+	 * renames it to the target name, so no incomplete target file is ever visible.
+	 */
+	private static void writeAtomic(Path target, byte[] data) throws IOException {
+		Path dir = target.getParent();
+		Files.createDirectories(dir);
+		Path tmp = Files.createTempFile(dir, "." + target.getFileName(), ".tmp");
+		try {
+			// The file is handled with automatic resource management.
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.wrap(data);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(true);
+			}
+			Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp); // only exists if writing or renaming failed
+		}
+	}
+
+	/**
+	 * Creates an executor with a virtual thread per task if the Java version supports it,
+	 * otherwise a pool of platform threads. The method is looked up by reflection, so the class
+	 * also compiles and runs on Java versions without virtual threads.
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			// the threads mostly wait for the file system, so there are more threads than cores
+			return Executors.newFixedThreadPool(4 * Runtime.getRuntime().availableProcessors());
+		}
+	}
+}
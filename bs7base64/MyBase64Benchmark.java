@@ -0,0 +1,335 @@
+package bs7base64;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Benchmark for all encoders and decoders of bs7base64 with java.util.Base64 as baseline.
+ * Every implementation is run with synthetic random data from 64 bytes up to the maximum size.
+ * Each measurement has a warm-up phase, so the JIT compiler has optimized the code before the
+ * time is taken. The results are operations per second, MB per second of binary data, bytes
+ * allocated per operation (by the calling thread) and the speed relative to java.util.Base64.
+ * Usage: MyBase64Benchmark [maxSize in bytes, default 16 MB, up to 1 GB] [name filter]
+ * The String based implementations are only run up to the size given with the case, because
+ * their run time grows too fast for larger data. Base16 is run up to 512 MB, the encoded 1 GB
+ * would not fit into an array. All other results of 1 GB fit into an array. The streams, the incremental converters and the
+ * ByteBuffer methods are fed in slices of SLICE bytes, as they are used for data that does not
+ * arrive at once.
+ */
+public class MyBase64Benchmark {
+	private static final int[] SIZES = { 64, 1024, 64 * 1024, 1024 * 1024, 16 * 1024 * 1024, 256 * 1024 * 1024, 1024 * 1024 * 1024 };
+	private static final long WARMUP_NANOS = 1_000_000_000L;
+	private static final long MEASURE_NANOS = 2_000_000_000L;
+	private static final int MIN_OPS = 3; // large sizes are run at least this often, even if it takes longer
+	private static final int SLICE = 8 * 1024; // slice size of the streaming cases, not a multiple of 3, so the carry over of blocks is measured as well
+
+	private static volatile int sink; // consumes the results, so the JIT can not remove the calls
+
+	/**
+	 * One implementation: prepare converts the random data into the input of the operation
+	 * (outside of the measurement), run executes the operation and returns the result size.
+	 */
+	private static final class Case<T> {
+		final String name;
+		final boolean encode;
+		final int maxSize;
+		final Function<byte[], T> prepare;
+		final ToIntFunction<T> run;
+
+		Case(String name, boolean encode, int maxSize, Function<byte[], T> prepare, ToIntFunction<T> run) {
+			this.name = name;
+			this.encode = encode;
+			this.maxSize = maxSize;
+			this.prepare = prepare;
+			this.run = run;
+		}
+	}
+
+	public static void main(String[] args) {
+		int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 16 * 1024 * 1024;
+		String filter = args.length > 1 ? args[1] : "";
+
+		System.out.println("Vector API: " + MyBase64Simd.isAvailable() + ", cores: " + Runtime.getRuntime().availableProcessors());
+		System.out.printf("%-8s %-34s %12s %14s %12s %14s %8s%n", "", "implementation", "size", "ops/s", "MB/s", "alloc B/op", "x java");
+		Map<String, Double> baseline = new HashMap<>();
+		Random random = new Random(42);
+		for (int size : SIZES) {
+			if (size > maxSize) {
+				break;
+			}
+			byte[] data = new byte[size];
+			random.nextBytes(data);
+			for (Case<?> c : buildCases()) {
+				if (size <= c.maxSize && (c.name.contains(filter) || c.name.startsWith("java."))) {
+					run(c, data, baseline);
+				}
+			}
+		}
+	}
+
+	private static <T> void run(Case<T> c, byte[] data, Map<String, Double> baseline) {
+		T input = c.prepare.apply(data);
+		measure(c, input, WARMUP_NANOS);
+		long allocBefore = allocatedBytes();
+		long start = System.nanoTime();
+		long ops = measure(c, input, MEASURE_NANOS);
+		long nanos = System.nanoTime() - start;
+		long alloc = allocatedBytes() - allocBefore;
+
+		double opsPerSecond = ops * 1e9 / nanos;
+		double mbPerSecond = opsPerSecond * data.length / (1024 * 1024);
+		String key = (c.encode ? "encode " : "decode ") + data.length;
+		if (c.name.startsWith("java.")) {
+			baseline.put(key, opsPerSecond);
+		}
+		Double base = baseline.get(key);
+		System.out.printf("%-8s %-34s %12d %14.1f %12.1f %14s %8.2f%n", c.encode ? "encode" : "decode", c.name, data.length,
+				opsPerSecond, mbPerSecond, alloc < 0 ? "n/a" : String.valueOf(alloc / ops), base == null ? 0 : opsPerSecond / base);
+	}
+
+	/**
+	 * Runs the operation until the given time has passed and returns the number of operations.
+	 */
+	private static <T> long measure(Case<T> c, T input, long nanos) {
+		long ops = 0;
+		int result = 0;
+		long end = System.nanoTime() + nanos;
+		while (System.nanoTime() < end || ops < MIN_OPS) {
+			result += c.run.applyAsInt(input);
+			ops++;
+		}
+		sink = result;
+		return ops;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread, -1 if the JVM does not support it.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	private static List<Case<?>> buildCases() {
+		int all = Integer.MAX_VALUE;
+		int simple = 16 * 1024; // the String based implementations are far too slow for larger data
+		int base16 = 512 * 1024 * 1024; // 2 characters per byte, the result of larger data does not fit into an array
+		List<Case<?>> cases = new ArrayList<>();
+		// encoders, the baseline first
+		cases.add(new Case<>("java.util.Base64", true, all, d -> d, d -> Base64.getEncoder().encode(d).length));
+		cases.add(new Case<>("MyBase64bitsFile.block", true, all, d -> d, d -> MyBase64bitsFile.binToBase64Block(d).length));
+		cases.add(new Case<>("MyBase64Simd", true, all, d -> d, d -> MyBase64Simd.encode(d).length));
+		cases.add(new Case<>("MyBase64Parallel", true, all, d -> d, d -> MyBase64Parallel.encode(d).length));
+		cases.add(new Case<>("MyBase64Dispatcher", true, all, d -> d, d -> MyBase64Dispatcher.encodeDefault(d).length));
+		cases.add(new Case<>("MyBase64Codec.STANDARD", true, all, d -> d, d -> MyBase64Codec.STANDARD.encode(d).length));
+		cases.add(new Case<>("MyBase64ReusableEncoder", true, all, d -> d, d -> MyBase64ReusableEncoder.forThread().encode(d)));
+		cases.add(new Case<>("MyBaseNCodec.BASE64", true, all, d -> d, d -> MyBaseNCodec.BASE64.encode(d).length));
+		cases.add(new Case<>("MyBaseNCodec.BASE32", true, all, d -> d, d -> MyBaseNCodec.BASE32.encode(d).length));
+		cases.add(new Case<>("MyBaseNCodec.BASE32_HEX", true, all, d -> d, d -> MyBaseNCodec.BASE32_HEX.encode(d).length));
+		cases.add(new Case<>("MyBaseNCodec.BASE16", true, base16, d -> d, d -> MyBaseNCodec.BASE16.encode(d).length));
+		cases.add(new Case<>("MyBase85Codec.ASCII85", true, all, d -> d, d -> MyBase85Codec.ASCII85.encode(d).length));
+		cases.add(new Case<>("MyBase85Codec.Z85", true, all, d -> d, d -> MyBase85Codec.Z85.encode(d).length));
+		cases.add(new Case<>("MyBase64EncoderStream", true, all, d -> d, d -> writeSlices(d, MyBase64EncoderStream::new)));
+		cases.add(new Case<>("MyRadixCodec.stream BASE32", true, all, d -> d, d -> writeSlices(d, MyBaseNCodec.BASE32::encodingStream)));
+		cases.add(new Case<>("MyRadixCodec.stream ASCII85", true, all, d -> d, d -> writeSlices(d, MyBase85Codec.ASCII85::encodingStream)));
+		cases.add(new Case<>("MyBase64IncrementalEncoder", true, all, d -> d, MyBase64Benchmark::encodeIncremental));
+		cases.add(new Case<>("MyBase64Buffers", true, all, d -> d, MyBase64Benchmark::encodeBuffers));
+		cases.add(new Case<>("MyBase64Large", true, all, MyLargeBuffer::wrap, MyBase64Benchmark::encodeLarge));
+		cases.add(new Case<>("MyBase64bitsFile.stream", true, all, d -> d, MyBase64Benchmark::encodeBitsFileStream));
+		cases.add(new Case<>("MyBase64Mime.MIME", true, all, d -> d, d -> MyBase64Mime.MIME.encode(d).length));
+		cases.add(new Case<>("MyBase64Checksum", true, all, d -> d, d -> MyBase64Checksum.encode(d).length));
+		cases.add(new Case<>("MyBase64bits.textToBase64", true, all, MyBase64Benchmark::toText, t -> MyBase64bits.textToBase64(t, 16).length()));
+		cases.add(new Case<>("MyBase64FileSimple", true, simple / 16, MyBase64Benchmark::toBitString, s -> MyBase64FileSimple.binToBase64(s, 8).length()));
+		cases.add(new Case<>("MyBase64FileSimple2", true, simple, MyBase64Benchmark::toBitString, s -> MyBase64FileSimple2.binToBase64(s, 8).length()));
+		cases.add(new Case<>("MyBase64FileSimple3", true, simple, MyBase64Benchmark::toBitString, s -> MyBase64FileSimple3.binToBase64(s, 8).length()));
+		cases.add(new Case<>("MyBase64FileSimple3.bitBuffer", true, simple * 64, MyBitBuffer::fromBytes, b -> MyBase64FileSimple3.binToBase64(b, 8).length()));
+		cases.add(new Case<>("MyBase64simple.textToBase64", true, simple * 64, MyBase64Benchmark::toText, t -> MyBase64simple.textToBase64(t, 16).length()));
+		// decoders, the baseline first
+		cases.add(new Case<>("java.util.Base64", false, all, Base64.getEncoder()::encode, e -> Base64.getDecoder().decode(e).length));
+		cases.add(new Case<>("MyBase64bitsFile.block", false, all, Base64.getEncoder()::encode, e -> MyBase64bitsFile.base64ToBinBlock(e).length));
+		cases.add(new Case<>("MyBase64Swar", false, all, Base64.getEncoder()::encode, e -> MyBase64Swar.decode(e).length));
+		cases.add(new Case<>("MyBase64Simd", false, all, Base64.getEncoder()::encode, e -> MyBase64Simd.decode(e).length));
+		cases.add(new Case<>("MyBase64Parallel", false, all, Base64.getEncoder()::encode, e -> MyBase64Parallel.decode(e).length));
+		cases.add(new Case<>("MyBase64Dispatcher", false, all, Base64.getEncoder()::encode, e -> MyBase64Dispatcher.decodeDefault(e).length));
+		cases.add(new Case<>("MyBase64Codec.STANDARD", false, all, Base64.getEncoder()::encode, e -> MyBase64Codec.STANDARD.decode(e).length));
+		cases.add(new Case<>("MyBaseNCodec.BASE64", false, all, Base64.getEncoder()::encode, e -> MyBaseNCodec.BASE64.decode(e).length));
+		cases.add(new Case<>("MyBaseNCodec.BASE32", false, all, MyBaseNCodec.BASE32::encode, e -> MyBaseNCodec.BASE32.decode(e).length));
+		cases.add(new Case<>("MyBaseNCodec.BASE32_HEX", false, all, MyBaseNCodec.BASE32_HEX::encode, e -> MyBaseNCodec.BASE32_HEX.decode(e).length));
+		cases.add(new Case<>("MyBaseNCodec.BASE16", false, base16, MyBaseNCodec.BASE16::encode, e -> MyBaseNCodec.BASE16.decode(e).length));
+		cases.add(new Case<>("MyBase85Codec.ASCII85", false, all, MyBase85Codec.ASCII85::encode, e -> MyBase85Codec.ASCII85.decode(e).length));
+		cases.add(new Case<>("MyBase85Codec.Z85", false, all, MyBase85Codec.Z85::encode, e -> MyBase85Codec.Z85.decode(e).length));
+		cases.add(new Case<>("MyBase64DecoderStream", false, all, Base64.getEncoder()::encode, e -> readSlices(e, MyBase64DecoderStream::new)));
+		cases.add(new Case<>("MyRadixCodec.stream BASE32", false, all, MyBaseNCodec.BASE32::encode, e -> readSlices(e, MyBaseNCodec.BASE32::decodingStream)));
+		cases.add(new Case<>("MyRadixCodec.stream ASCII85", false, all, MyBase85Codec.ASCII85::encode, e -> readSlices(e, MyBase85Codec.ASCII85::decodingStream)));
+		cases.add(new Case<>("MyBase64IncrementalDecoder", false, all, Base64.getEncoder()::encode, MyBase64Benchmark::decodeIncremental));
+		cases.add(new Case<>("MyBase64Buffers", false, all, Base64.getEncoder()::encode, MyBase64Benchmark::decodeBuffers));
+		cases.add(new Case<>("MyBase64Large", false, all, d -> MyLargeBuffer.wrap(Base64.getEncoder().encode(d)), MyBase64Benchmark::decodeLarge));
+		cases.add(new Case<>("MyBase64Mime.MIME", false, all, MyBase64Mime.MIME::encode, e -> MyBase64Mime.MIME.decode(e).length));
+		cases.add(new Case<>("MyBase64Checksum", false, all, MyBase64Checksum::encode, e -> MyBase64Checksum.decode(e).length));
+		cases.add(new Case<>("MyBase64bits.base64ToText", false, all, d -> MyBase64bits.textToBase64(toText(d), 16), s -> MyBase64bits.base64ToText(s, 16).length()));
+		cases.add(new Case<>("MyBase64bitsFile.base64ToBinBytes", false, simple * 64, Base64.getEncoder()::encodeToString, s -> MyBase64bitsFile.base64ToBinBytes(s, 8).length));
+		cases.add(new Case<>("MyBase64FileSimple", false, simple / 16, Base64.getEncoder()::encodeToString, s -> MyBase64FileSimple.base64ToBinString(s, 8).length()));
+		cases.add(new Case<>("MyBase64FileSimple2", false, simple, Base64.getEncoder()::encodeToString, s -> MyBase64FileSimple2.base64ToBinString(s, 8).length()));
+		cases.add(new Case<>("MyBase64FileSimple3", false, simple, Base64.getEncoder()::encodeToString, s -> MyBase64FileSimple3.base64ToBinString(s, 8).length()));
+		cases.add(new Case<>("MyBase64FileSimple3.bitBuffer", false, simple * 64, Base64.getEncoder()::encodeToString, s -> (int)MyBase64FileSimple3.base64ToBitBuffer(s, 8).length()));
+		cases.add(new Case<>("MyBase64simple.base64ToText", false, simple * 64, d -> MyBase64bits.textToBase64(toText(d), 16), s -> MyBase64simple.base64ToText(s, 16).length()));
+		return cases;
+	}
+
+	/**
+	 * Writes the data in slices of SLICE bytes to the encoding stream and returns the number of
+	 * characters the stream passed on.
+	 */
+	private static int writeSlices(byte[] data, Function<OutputStream, OutputStream> encoder) {
+		CountingOutputStream counter = new CountingOutputStream();
+		// The stream is handled with automatic resource management, close() writes the last block.
+		try (OutputStream os = encoder.apply(counter)) {
+			for (int off = 0; off < data.length; off += SLICE) {
+				os.write(data, off, Math.min(SLICE, data.length - off));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return counter.count;
+	}
+
+	/**
+	 * Reads the decoding stream in slices of SLICE bytes and returns the number of bytes.
+	 */
+	private static int readSlices(byte[] encoded, Function<InputStream, InputStream> decoder) {
+		byte[] buffer = new byte[SLICE];
+		int count = 0;
+		// The stream is handled with automatic resource management.
+		try (InputStream is = decoder.apply(new ByteArrayInputStream(encoded))) {
+			int n;
+			while ((n = is.read(buffer)) > 0) {
+				count += n;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return count;
+	}
+
+	private static int encodeIncremental(byte[] data) {
+		MyBase64IncrementalEncoder encoder = new MyBase64IncrementalEncoder();
+		byte[] dst = new byte[MyBase64Tools.encodedLength(data.length)];
+		int dp = 0;
+		for (int off = 0; off < data.length; off += SLICE) {
+			dp += encoder.update(data, off, Math.min(SLICE, data.length - off), dst, dp);
+		}
+		return dp + encoder.finish(dst, dp);
+	}
+
+	private static int decodeIncremental(byte[] encoded) {
+		MyBase64IncrementalDecoder decoder = new MyBase64IncrementalDecoder();
+		byte[] dst = new byte[encoded.length / 4 * 3 + 3]; // the padding is only known at the end
+		int dp = 0;
+		for (int off = 0; off < encoded.length; off += SLICE) {
+			dp += decoder.update(encoded, off, Math.min(SLICE, encoded.length - off), dst, dp);
+		}
+		return dp + decoder.finish(dst, dp);
+	}
+
+	/**
+	 * Encodes the data into a target buffer of SLICE bytes, which is drained whenever it is full.
+	 */
+	private static int encodeBuffers(byte[] data) {
+		ByteBuffer src = ByteBuffer.wrap(data);
+		ByteBuffer dst = ByteBuffer.allocate(SLICE);
+		int count = 0;
+		while (MyBase64Buffers.encode(src, dst) == MyBase64Buffers.Result.OVERFLOW) {
+			count += dst.position();
+			dst.clear();
+		}
+		return count + dst.position();
+	}
+
+	/**
+	 * Decodes the characters into a target buffer of SLICE bytes, which is drained whenever it is full.
+	 */
+	private static int decodeBuffers(byte[] encoded) {
+		ByteBuffer src = ByteBuffer.wrap(encoded);
+		ByteBuffer dst = ByteBuffer.allocate(SLICE);
+		int count = 0;
+		while (MyBase64Buffers.decode(src, dst) == MyBase64Buffers.Result.OVERFLOW) {
+			count += dst.position();
+			dst.clear();
+		}
+		return count + dst.position();
+	}
+
+	private static int encodeLarge(MyLargeBuffer src) {
+		MyLargeBuffer dst = MyLargeBuffer.wrap(new byte[(int)MyBase64Large.encodedLength(src.size())]);
+		return (int)MyBase64Large.encode(src, 0, src.size(), dst, 0);
+	}
+
+	private static int decodeLarge(MyLargeBuffer src) {
+		MyLargeBuffer dst = MyLargeBuffer.wrap(new byte[(int)MyBase64Large.decodedLength(src, 0, src.size())]);
+		return (int)MyBase64Large.decode(src, 0, src.size(), dst, 0);
+	}
+
+	private static int encodeBitsFileStream(byte[] data) {
+		try {
+			return (int)MyBase64bitsFile.binToBase64(data, new CountingOutputStream());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Stream which only counts the written bytes, so the streaming cases are not measured
+	 * together with a growing target array.
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+		int count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+
+	/**
+	 * Converts the data into a text with 2 bytes per character.
+	 */
+	private static String toText(byte[] data) {
+		return new String(data, 0, data.length / 2 * 2, StandardCharsets.UTF_16BE);
+	}
+
+	/**
+	 * Converts the data into the 8 bit pattern String of MyBase64Tools.readFileToBinString.
+	 */
+	private static String toBitString(byte[] data) {
+		StringBuilder bits = new StringBuilder(data.length * 8);
+		for (byte b : data) {
+			for (int i = 7; i >= 0; i--) {
+				bits.append((char)('0' + (b >>> i & 1)));
+			}
+		}
+		return bits.toString();
+	}
+}
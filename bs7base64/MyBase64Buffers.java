@@ -0,0 +1,95 @@
+package bs7base64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base64 encoding and decoding between ByteBuffers. The methods work on heap and direct buffers
+ * alike and advance the positions of both buffers like the NIO channels do. The result tells the
+ * caller if more input is needed (UNDERFLOW) or if the target buffer is full (OVERFLOW), so the
+ * data can be moved between socket and file buffers in a loop without any extra copy.
+ * The target buffers must have a capacity of at least one block (4 characters or 3 bytes).
+ */
+public class MyBase64Buffers {
+	/**
+	 * State after a conversion step.
+	 */
+	public enum Result {
+		/** All input was converted, or the rest is an incomplete block which needs more input. */
+		UNDERFLOW,
+		/** The target buffer is full, it must be drained before the conversion can go on. */
+		OVERFLOW
+	}
+
+	/**
+	 * Encodes all remaining bytes of src including the padding of the last block.
+	 * @param src Data to convert.
+	 * @param dst Target buffer for the ASCII characters.
+	 * @return UNDERFLOW if src was converted completely, OVERFLOW if dst is full.
+	 */
+	public static Result encode(ByteBuffer src, ByteBuffer dst) {
+		return encode(src, dst, true);
+	}
+
+	/**
+	 * Encodes the remaining bytes of src to Base64. Only complete blocks of 3 bytes are converted,
+	 * unless endOfInput is set: then the last 1 or 2 bytes are converted with padding as well.
+	 * @param src Data to convert.
+	 * @param dst Target buffer for the ASCII characters.
+	 * @param endOfInput true if src holds the end of the data.
+	 * @return UNDERFLOW if src holds no more complete blocks, OVERFLOW if dst is full.
+	 */
+	public static Result encode(ByteBuffer src, ByteBuffer dst, boolean endOfInput) {
+		int blocks = Math.min(src.remaining() / 3, dst.remaining() / 4);
+		int n = MyBase64bitsFile.encodeBlock(src, src.position(), blocks * 3, dst, dst.position(), MyBase64Tools.ENCODING_PAIRS);
+		src.position(src.position() + blocks * 3);
+		dst.position(dst.position() + n);
+		if (src.remaining() >= 3) {
+			return Result.OVERFLOW;
+		}
+		if (endOfInput && src.hasRemaining()) {
+			if (dst.remaining() < 4) {
+				return Result.OVERFLOW;
+			}
+			n = MyBase64bitsFile.encodeBlock(src, src.position(), src.remaining(), dst, dst.position(), MyBase64Tools.ENCODING_PAIRS);
+			src.position(src.limit());
+			dst.position(dst.position() + n);
+		}
+		return Result.UNDERFLOW;
+	}
+
+	/**
+	 * Decodes all remaining characters of src. A missing padding is accepted.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param dst Target buffer for the decoded bytes.
+	 * @return UNDERFLOW if src was converted completely, OVERFLOW if dst is full.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 *         The position is the absolute position in src.
+	 */
+	public static Result decode(ByteBuffer src, ByteBuffer dst) {
+		return decode(src, dst, true);
+	}
+
+	/**
+	 * Decodes the remaining characters of src. Only complete blocks of 4 characters are converted,
+	 * unless endOfInput is set: then the last 2 or 3 characters of an unpadded input are converted as well.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param dst Target buffer for the decoded bytes.
+	 * @param endOfInput true if src holds the end of the data.
+	 * @return UNDERFLOW if src holds no more complete blocks, OVERFLOW if dst is full.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 *         The position is the absolute position in src.
+	 */
+	public static Result decode(ByteBuffer src, ByteBuffer dst, boolean endOfInput) {
+		int chars = endOfInput ? src.remaining() : src.remaining() / 4 * 4; // at the end an unpadded rest is decoded as well
+		if (MyBase64Tools.decodedLength(src, src.position(), chars) > dst.remaining()) {
+			chars = Math.min(chars, dst.remaining() / 3 * 4); // only complete blocks without padding fit
+		}
+		int n = MyBase64bitsFile.decodeBlock(src, src.position(), chars, dst, dst.position(), MyBase64Tools.DECODING_PAIRS);
+		src.position(src.position() + chars);
+		dst.position(dst.position() + n);
+		if (src.remaining() >= 4 || (endOfInput && src.hasRemaining())) {
+			return Result.OVERFLOW;
+		}
+		return Result.UNDERFLOW;
+	}
+}
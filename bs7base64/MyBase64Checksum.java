@@ -0,0 +1,147 @@
+package bs7base64;
+
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Base64 with a trailing checksum: the 32 bit checksum of the data is appended to the data
+ * (4 bytes, big endian) before it is encoded, so the result is a single Base64 text.
+ * The checksum is calculated in the same pass as the encoding and verified in the same pass
+ * as the decoding (see the Checksum variants of MyBase64bitsFile.encodeBlock and decodeBlock).
+ * The default checksum is CRC32C, any other 32 bit Checksum like CRC32 or Adler32 can be used.
+ */
+public class MyBase64Checksum {
+	/**
+	 * Number of bytes of the checksum.
+	 */
+	public static final int CHECKSUM_SIZE = 4;
+
+	/**
+	 * Calculates the number of Base64 characters of len bytes with checksum.
+	 * @param len Number of data bytes.
+	 * @return Number of characters.
+	 */
+	public static int encodedLength(int len) {
+		return MyBase64Tools.encodedLength(len + CHECKSUM_SIZE);
+	}
+
+	/**
+	 * Converts the given data with a CRC32C checksum to Base64.
+	 * @param data Data to convert.
+	 * @return Base64 encoded ASCII characters.
+	 */
+	public static byte[] encode(byte[] data) {
+		return encode(data, new CRC32C());
+	}
+
+	/**
+	 * Converts the given data with the given checksum to Base64.
+	 * @param data Data to convert.
+	 * @param checksum Checksum algorithm, it is reset before use.
+	 * @return Base64 encoded ASCII characters.
+	 */
+	public static byte[] encode(byte[] data, Checksum checksum) {
+		byte[] out = new byte[encodedLength(data.length)];
+		encode(data, 0, data.length, out, 0, checksum);
+		return out;
+	}
+
+	/**
+	 * Encodes len bytes of src followed by their checksum to Base64.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target array, must have space for encodedLength(len) characters.
+	 * @param dstPos Start position in dst.
+	 * @param checksum Checksum algorithm, it is reset before use.
+	 * @return Number of characters written.
+	 */
+	public static int encode(byte[] src, int srcPos, int len, byte[] dst, int dstPos, Checksum checksum) {
+		checksum.reset();
+		int full = len / 3 * 3;
+		int dp = dstPos + MyBase64bitsFile.encodeBlock(src, srcPos, full, dst, dstPos, MyBase64Tools.ENCODING_PAIRS, checksum);
+		// the last 0 to 2 bytes and the checksum form the last 2 or 3 blocks
+		byte[] tail = new byte[2 + CHECKSUM_SIZE];
+		int rest = len - full;
+		System.arraycopy(src, srcPos + full, tail, 0, rest);
+		checksum.update(tail, 0, rest);
+		int value = (int)checksum.getValue();
+		for (int i = 0; i < CHECKSUM_SIZE; i++) {
+			tail[rest + i] = (byte)(value >>> 8 * (CHECKSUM_SIZE - 1 - i));
+		}
+		dp += MyBase64bitsFile.encodeBlock(tail, 0, rest + CHECKSUM_SIZE, dst, dp, MyBase64Tools.ENCODING_PAIRS);
+		return dp - dstPos;
+	}
+
+	/**
+	 * Calculates the number of data bytes of len Base64 characters with checksum.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param pos Start position of the characters.
+	 * @param len Number of characters.
+	 * @return Number of data bytes without the checksum, negative if the data is too short for a checksum.
+	 */
+	public static int decodedLength(byte[] src, int pos, int len) {
+		return MyBase64Tools.decodedLength(src, pos, len) - CHECKSUM_SIZE;
+	}
+
+	/**
+	 * Decodes the Base64 characters and verifies the CRC32C checksum at the end of the data.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @return Decoded data without the checksum.
+	 * @throws MyBase64FormatException If src contains invalid characters or the checksum does not match.
+	 */
+	public static byte[] decode(byte[] src) {
+		return decode(src, new CRC32C());
+	}
+
+	/**
+	 * Decodes the Base64 characters and verifies the checksum at the end of the data.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param checksum Checksum algorithm, it is reset before use.
+	 * @return Decoded data without the checksum.
+	 * @throws MyBase64FormatException If src contains invalid characters or the checksum does not match.
+	 */
+	public static byte[] decode(byte[] src, Checksum checksum) {
+		byte[] out = new byte[Math.max(0, decodedLength(src, 0, src.length))];
+		decode(src, 0, src.length, out, 0, checksum);
+		return out;
+	}
+
+	/**
+	 * Decodes len Base64 characters of src, writes the data to dst and verifies the checksum
+	 * at the end of the data. The checksum itself is not written to dst.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target array, must have space for decodedLength(src, srcPos, len) bytes.
+	 * @param dstPos Start position in dst.
+	 * @param checksum Checksum algorithm, it is reset before use.
+	 * @return Number of data bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or the checksum does not match.
+	 */
+	public static int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos, Checksum checksum) {
+		int dataLen = decodedLength(src, srcPos, len);
+		if (dataLen < 0) {
+			throw new MyBase64FormatException("Missing checksum", srcPos);
+		}
+		checksum.reset();
+		int chars = dataLen / 3 * 4; // the blocks which only hold data are decoded directly into dst
+		int n = MyBase64bitsFile.decodeBlock(src, srcPos, chars, dst, dstPos, MyBase64Tools.DECODING_PAIRS, checksum);
+		if (n < dataLen / 3 * 3) { // the checksum follows, so there must not be a padding
+			throw new MyBase64FormatException("Illegal Base64 character " + (int)'=', srcPos + chars - (dataLen / 3 * 3 - n));
+		}
+		// the last 0 to 2 data bytes and the checksum are decoded into a separate array
+		byte[] tail = new byte[2 + CHECKSUM_SIZE];
+		int rest = MyBase64bitsFile.decodeBlock(src, srcPos + chars, len - chars, tail, 0, MyBase64Tools.DECODING_PAIRS) - CHECKSUM_SIZE;
+		System.arraycopy(tail, 0, dst, dstPos + n, rest);
+		checksum.update(tail, 0, rest);
+		int value = 0;
+		for (int i = 0; i < CHECKSUM_SIZE; i++) {
+			value = value << 8 | tail[rest + i] & 0xff;
+		}
+		if (value != (int)checksum.getValue()) {
+			throw new MyBase64FormatException("Checksum mismatch", srcPos + chars);
+		}
+		return n + rest;
+	}
+}
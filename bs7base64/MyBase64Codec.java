@@ -0,0 +1,277 @@
+package bs7base64;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base64 codec for one alphabet. All tables (pair tables for the block encoder and decoder and
+ * a decoding table with 256 entries) are computed once in the constructor and never change,
+ * so a codec can be shared between threads and reused for any number of calls.
+ * Codecs are kept in a registry by name, the alphabets standard, url and imap are predefined.
+ */
+public final class MyBase64Codec extends MyRadixCodec {
+	private static final ConcurrentHashMap<String, MyBase64Codec> REGISTRY = new ConcurrentHashMap<>();
+
+	private static final String STANDARD_ALPHABET = new String(MyBase64Tools.buildEncoding());
+
+	/** Base64 as defined by RFC 4648 with padding. */
+	public static final MyBase64Codec STANDARD = register("standard", STANDARD_ALPHABET, true);
+	/** Base64 with the URL and file name safe alphabet of RFC 4648 ('-' and '_') with padding. */
+	public static final MyBase64Codec URL_SAFE = register("url", STANDARD_ALPHABET.replace('+', '-').replace('/', '_'), true);
+	/** Modified Base64 of IMAP mailbox names (RFC 3501, ',' instead of '/') without padding. */
+	public static final MyBase64Codec IMAP = register("imap", STANDARD_ALPHABET.replace('/', ','), false);
+
+	private final String alphabet;
+	private final boolean padding;
+	private final boolean standard; // true if the SIMD engine can be used
+	private final byte[] encoding;
+	private final char[] encodingPairs;
+	private final short[] decodingPairs;
+	private final byte[] decoding; // 256 entries, -1 for invalid characters
+
+	/**
+	 * Creates a codec for the given alphabet. The tables are built once, so a codec should be
+	 * kept and reused (see register and forName).
+	 * @param alphabet 64 different ASCII characters in the order of their values, '=' is not allowed.
+	 * @param padding true if the last block is filled up with '='.
+	 */
+	public MyBase64Codec(String alphabet, boolean padding) {
+		if (alphabet.length() != 64) {
+			throw new IllegalArgumentException("The alphabet must have 64 characters");
+		}
+		for (int i = 0; i < alphabet.length(); i++) {
+			char c = alphabet.charAt(i);
+			if (c <= ' ' || c >= 127 || c == '=' || alphabet.indexOf(c) != i) {
+				throw new IllegalArgumentException("Invalid alphabet character '" + c + "' at position " + i);
+			}
+		}
+		this.alphabet = alphabet;
+		this.padding = padding;
+		this.standard = alphabet.equals(STANDARD_ALPHABET);
+		this.encoding = alphabet.getBytes(StandardCharsets.ISO_8859_1);
+		this.encodingPairs = MyBase64Tools.buildEncodingPairs(alphabet.toCharArray());
+		this.decodingPairs = MyBase64Tools.buildDecodingPairs(alphabet.toCharArray());
+		this.decoding = buildDecoding(encoding);
+	}
+
+	/**
+	 * Registers a codec under the given name. If the name is already registered, the existing
+	 * codec is returned, if it uses the same alphabet and padding.
+	 * @param name Name of the codec.
+	 * @param alphabet 64 different ASCII characters in the order of their values.
+	 * @param padding true if the last block is filled up with '='.
+	 * @return Registered codec.
+	 * @throws IllegalArgumentException If the name is registered for another alphabet.
+	 */
+	public static MyBase64Codec register(String name, String alphabet, boolean padding) {
+		MyBase64Codec codec = REGISTRY.computeIfAbsent(name, n -> new MyBase64Codec(alphabet, padding));
+		if (!codec.alphabet.equals(alphabet) || codec.padding != padding) {
+			throw new IllegalArgumentException("The name " + name + " is registered for another alphabet");
+		}
+		return codec;
+	}
+
+	/**
+	 * Returns the codec that was registered under the given name.
+	 * @param name Name of the codec.
+	 * @return Registered codec.
+	 * @throws IllegalArgumentException If no codec is registered under the name.
+	 */
+	public static MyBase64Codec forName(String name) {
+		MyBase64Codec codec = REGISTRY.get(name);
+		if (codec == null) {
+			throw new IllegalArgumentException("Unknown Base64 alphabet " + name);
+		}
+		return codec;
+	}
+
+	/**
+	 * @return Names of all registered codecs.
+	 */
+	public static Set<String> names() {
+		return Set.copyOf(REGISTRY.keySet());
+	}
+
+	/**
+	 * @return The 64 characters of the alphabet.
+	 */
+	public String alphabet() {
+		return alphabet;
+	}
+
+	/**
+	 * @return true if the last block is filled up with '='.
+	 */
+	public boolean isPadding() {
+		return padding;
+	}
+
+	/**
+	 * Returns the value of a character.
+	 * @param c Character to look up.
+	 * @return Value 0 to 63, or -1 if c is not part of the alphabet.
+	 */
+	public int valueOf(int c) {
+		return c >= 0 && c < 256 ? decoding[c] : -1;
+	}
+
+	@Override
+	public int inputBlockSize() {
+		return 3;
+	}
+
+	@Override
+	public int outputBlockSize() {
+		return 4;
+	}
+
+	@Override
+	public int encodedLength(int len) {
+		return padding ? MyBase64Tools.encodedLength(len) : Math.toIntExact((len * 4L + 2) / 3);
+	}
+
+	@Override
+	public int decodedLength(byte[] src, int pos, int len) {
+		return MyBase64Tools.decodedLength(src, pos, len);
+	}
+
+	@Override
+	public int encode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		if (padding) {
+			return standard ? MyBase64Simd.encode(src, srcPos, len, dst, dstPos)
+					: MyBase64bitsFile.encodeBlock(src, srcPos, len, dst, dstPos, encodingPairs);
+		}
+		int full = len / 3 * 3; // complete blocks need no padding
+		int dp = dstPos + (standard ? MyBase64Simd.encode(src, srcPos, full, dst, dstPos)
+				: MyBase64bitsFile.encodeBlock(src, srcPos, full, dst, dstPos, encodingPairs));
+		int rest = len - full;
+		if (rest > 0) { // 1 byte results in 2 characters, 2 bytes result in 3 characters
+			int sp = srcPos + full;
+			int bits = (src[sp] & 0xff) << 16 | (rest == 2 ? (src[sp + 1] & 0xff) << 8 : 0);
+			dst[dp++] = encoding[bits >>> 18];
+			dst[dp++] = encoding[bits >>> 12 & 0b111111];
+			if (rest == 2) {
+				dst[dp++] = encoding[bits >>> 6 & 0b111111];
+			}
+		}
+		return dp - dstPos;
+	}
+
+	@Override
+	public int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		return standard ? MyBase64Simd.decode(src, srcPos, len, dst, dstPos)
+				: MyBase64bitsFile.decodeBlock(src, srcPos, len, dst, dstPos, decodingPairs);
+	}
+
+	/**
+	 * Checks the Base64 characters without decoding them: the characters must be part of the
+	 * alphabet, the padding may only complete the last group and the last group must have at
+	 * least 2 characters. Exactly the data that passes is accepted by decode.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param pos Start position of the characters.
+	 * @param len Number of characters.
+	 * @throws MyBase64FormatException With the position of the first error.
+	 */
+	public void validate(byte[] src, int pos, int len) {
+		int end = pos + len - paddingCount(len, len > 0 && src[pos + len - 1] == '=', len > 1 && src[pos + len - 2] == '=');
+		int blockEnd = pos + (end - pos) / 4 * 4;
+		int check = 0; // collects the sign bits of all lookups, so the loop has no branch per group
+		for (int i = pos; i < blockEnd; i += 4) {
+			int c1 = src[i];
+			int c2 = src[i + 1];
+			int c3 = src[i + 2];
+			int c4 = src[i + 3];
+			check |= c1 | c2 | c3 | c4 | decodingPairs[(c1 << 7 | c2) & 0x3fff] | decodingPairs[(c3 << 7 | c4) & 0x3fff];
+		}
+		for (int i = blockEnd; i < end; i++) {
+			check |= decoding[src[i] & 0xff];
+		}
+		if (check < 0) { // only in case of an error the exact position is searched
+			for (int i = pos; i < end; i++) {
+				if (decoding[src[i] & 0xff] < 0) {
+					throw new MyBase64FormatException("Illegal Base64 character " + (src[i] & 0xff), i);
+				}
+			}
+		}
+		if (end - blockEnd == 1) {
+			throw new MyBase64FormatException("Incomplete Base64 block", blockEnd);
+		}
+	}
+
+	/**
+	 * Checks the Base64 characters without decoding them (see validate(byte[], int, int)).
+	 * @param src Base64 characters as ASCII bytes.
+	 * @throws MyBase64FormatException With the position of the first error.
+	 */
+	public void validate(byte[] src) {
+		validate(src, 0, src.length);
+	}
+
+	/**
+	 * Checks the Base64 String without decoding it (see validate(byte[], int, int)).
+	 * @param src Base64 characters.
+	 * @throws MyBase64FormatException With the position of the first error.
+	 */
+	public void validate(CharSequence src) {
+		int len = src.length();
+		int end = len - paddingCount(len, len > 0 && src.charAt(len - 1) == '=', len > 1 && src.charAt(len - 2) == '=');
+		int check = 0; // collects the sign bits of all lookups, so the loop has no branch per character
+		for (int i = 0; i < end; i++) {
+			char c = src.charAt(i);
+			check |= 255 - c | decoding[c & 0xff]; // characters above 255 result in a negative value
+		}
+		if (check < 0) {
+			for (int i = 0; i < end; i++) {
+				if (valueOf(src.charAt(i)) < 0) {
+					throw new MyBase64FormatException("Illegal Base64 character " + (int)src.charAt(i), i);
+				}
+			}
+		}
+		if (end % 4 == 1) {
+			throw new MyBase64FormatException("Incomplete Base64 block", end - 1);
+		}
+	}
+
+	/**
+	 * @param src Base64 characters as ASCII bytes.
+	 * @return true if validate accepts the characters.
+	 */
+	public boolean isValid(byte[] src) {
+		try {
+			validate(src, 0, src.length);
+			return true;
+		} catch (MyBase64FormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @param src Base64 characters.
+	 * @return true if validate accepts the characters.
+	 */
+	public boolean isValid(CharSequence src) {
+		try {
+			validate(src);
+			return true;
+		} catch (MyBase64FormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the number of padding characters at the end of len characters. Like the decoder,
+	 * only a complete last group can have padding.
+	 */
+	private static int paddingCount(int len, boolean lastPadding, boolean secondLastPadding) {
+		if (len % 4 != 0 || !lastPadding) {
+			return 0;
+		}
+		return secondLastPadding ? 2 : 1;
+	}
+
+	@Override
+	public String toString() {
+		return "MyBase64Codec[" + alphabet + (padding ? ", padding]" : "]");
+	}
+}
@@ -0,0 +1,21 @@
+package bs7base64;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * Input stream that reads Base64 characters from the wrapped input stream and returns
+ * the decoded bytes. The characters are read in chunks, incomplete groups of 4 characters
+ * are carried to the next chunk. The memory usage is bounded by the size of the internal buffers.
+ * The stream is the radix stream of MyBase64Codec.STANDARD (see MyRadixCodec.decodingStream),
+ * this class only gives it a name and a public constructor.
+ */
+public class MyBase64DecoderStream extends FilterInputStream {
+	/**
+	 * Creates a decoding stream on top of the given stream.
+	 * @param in Stream which delivers the Base64 characters.
+	 */
+	public MyBase64DecoderStream(InputStream in) {
+		super(MyBase64Codec.STANDARD.decodingStream(in));
+	}
+}
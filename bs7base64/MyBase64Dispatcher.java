@@ -0,0 +1,348 @@
+package bs7base64;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Base64 encoding and decoding with the engine that is fastest for the size of the data.
+ * Small data is converted by the block engine of MyBase64bitsFile, which has no setup cost.
+ * From the SIMD threshold on, MyBase64Simd is used if the Vector API is available (for decoding
+ * without the Vector API the SWAR decoder). From the parallel threshold on, MyBase64Parallel
+ * splits the data over the cores, this level is only used on machines with more than one core.
+ * The thresholds are taken from a Properties file (see load and store) or measured at
+ * startup with calibrate. The default dispatcher reads the file of the system property
+ * bs7base64.dispatcher, if it is set.
+ */
+public final class MyBase64Dispatcher {
+	/**
+	 * Threshold of an engine which is never used.
+	 */
+	public static final int NEVER = Integer.MAX_VALUE;
+
+	private static final String ENCODE_SIMD = "encode.simd";
+	private static final String ENCODE_PARALLEL = "encode.parallel";
+	private static final String DECODE_SIMD = "decode.simd";
+	private static final String DECODE_PARALLEL = "decode.parallel";
+
+	private static final int[] CALIBRATION_SIZES = { 64, 256, 1024, 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024, 4 * 1024 * 1024 };
+	private static final long CALIBRATION_NANOS = 20_000_000L; // per engine and size, the same time again for the warm-up
+
+	private static volatile MyBase64Dispatcher defaultDispatcher;
+	private static volatile int sink; // consumes the results of the calibration, so the JIT can not remove the calls
+
+	private final int encodeSimd; // smallest number of bytes that are encoded by MyBase64Simd
+	private final int encodeParallel; // smallest number of bytes that are encoded by MyBase64Parallel
+	private final int decodeSimd; // smallest number of characters that are decoded by MyBase64Simd
+	private final int decodeParallel; // smallest number of characters that are decoded by MyBase64Parallel
+
+	/**
+	 * Calibrates the thresholds on this machine and prints them. If a file path is given, the
+	 * thresholds are written to it, so they can be used with -Dbs7base64.dispatcher=path.
+	 */
+	public static void main(String[] args) throws IOException {
+		long ts = System.currentTimeMillis();
+
+		MyBase64Dispatcher dispatcher = calibrate();
+
+		System.out.println(System.currentTimeMillis() - ts);
+		System.out.println(dispatcher);
+		if (args.length > 0) {
+			dispatcher.store(args[0]);
+		}
+	}
+
+	/**
+	 * Creates a dispatcher with the given thresholds. A threshold for the parallel engine is
+	 * ignored on a machine with only one core.
+	 * @param encodeSimd Number of bytes from which on MyBase64Simd encodes.
+	 * @param encodeParallel Number of bytes from which on MyBase64Parallel encodes.
+	 * @param decodeSimd Number of characters from which on MyBase64Simd decodes.
+	 * @param decodeParallel Number of characters from which on MyBase64Parallel decodes.
+	 */
+	public MyBase64Dispatcher(int encodeSimd, int encodeParallel, int decodeSimd, int decodeParallel) {
+		if (encodeSimd < 0 || encodeParallel < 0 || decodeSimd < 0 || decodeParallel < 0) {
+			throw new IllegalArgumentException("The thresholds must not be negative");
+		}
+		boolean parallel = Runtime.getRuntime().availableProcessors() > 1;
+		this.encodeSimd = MyBase64Simd.isAvailable() ? encodeSimd : NEVER; // without the Vector API the encoder is the block engine
+		this.encodeParallel = parallel ? encodeParallel : NEVER;
+		this.decodeSimd = decodeSimd;
+		this.decodeParallel = parallel ? decodeParallel : NEVER;
+	}
+
+	/**
+	 * Creates a dispatcher with thresholds that fit most machines: the SIMD engine from 1 KB on,
+	 * the parallel engine from two segments of MyBase64Parallel on.
+	 * @return Dispatcher with the default thresholds.
+	 */
+	public static MyBase64Dispatcher defaults() {
+		return new MyBase64Dispatcher(1024, 2 * MyBase64Parallel.SEGMENT_SIZE, 1024, 2 * MyBase64Parallel.SEGMENT_SIZE / 3 * 4);
+	}
+
+	/**
+	 * Returns the dispatcher which is used by encodeDefault and decodeDefault. It is
+	 * created on first use from the file of the system property bs7base64.dispatcher or with
+	 * the default thresholds.
+	 * @return Default dispatcher.
+	 */
+	public static MyBase64Dispatcher getDefault() {
+		MyBase64Dispatcher dispatcher = defaultDispatcher;
+		if (dispatcher == null) {
+			String filePath = System.getProperty("bs7base64.dispatcher");
+			try {
+				dispatcher = filePath == null ? defaults() : load(filePath);
+			} catch (IOException e) {
+				throw new IllegalStateException("The dispatcher configuration " + filePath + " can not be read", e);
+			}
+			defaultDispatcher = dispatcher; // two threads may both create one, they are equal
+		}
+		return dispatcher;
+	}
+
+	/**
+	 * Replaces the default dispatcher, e.g. with the result of calibrate.
+	 * @param dispatcher New default dispatcher.
+	 */
+	public static void setDefault(MyBase64Dispatcher dispatcher) {
+		defaultDispatcher = dispatcher;
+	}
+
+	/**
+	 * Creates a dispatcher from the properties encode.simd, encode.parallel, decode.simd and
+	 * decode.parallel (number of bytes or characters, or "never"). Missing properties get the
+	 * default value.
+	 * @param properties Thresholds.
+	 * @return Dispatcher with the given thresholds.
+	 */
+	public static MyBase64Dispatcher fromProperties(Properties properties) {
+		MyBase64Dispatcher d = defaults();
+		return new MyBase64Dispatcher(threshold(properties, ENCODE_SIMD, d.encodeSimd), threshold(properties, ENCODE_PARALLEL, d.encodeParallel),
+				threshold(properties, DECODE_SIMD, d.decodeSimd), threshold(properties, DECODE_PARALLEL, d.decodeParallel));
+	}
+
+	/**
+	 * Reads the thresholds from a Properties file.
+	 * @param filePath Path of the file.
+	 * @return Dispatcher with the thresholds of the file.
+	 * @throws IOException In case of any read error.
+	 */
+	public static MyBase64Dispatcher load(String filePath) throws IOException {
+		Properties properties = new Properties();
+		// The file is handled with automatic resource management.
+		try (InputStream is = new FileInputStream(filePath)) {
+			properties.load(is);
+		}
+		try {
+			return fromProperties(properties);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(filePath + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return The thresholds as properties, which can be read with fromProperties.
+	 */
+	public Properties toProperties() {
+		Properties properties = new Properties();
+		properties.setProperty(ENCODE_SIMD, format(encodeSimd));
+		properties.setProperty(ENCODE_PARALLEL, format(encodeParallel));
+		properties.setProperty(DECODE_SIMD, format(decodeSimd));
+		properties.setProperty(DECODE_PARALLEL, format(decodeParallel));
+		return properties;
+	}
+
+	/**
+	 * Writes the thresholds to a Properties file, e.g. the result of calibrate, so the next
+	 * start does not need to calibrate again. Existing files will be overwritten.
+	 * @param filePath Path of the file.
+	 * @throws IOException In case of any errors while writing.
+	 */
+	public void store(String filePath) throws IOException {
+		// The file is handled with automatic resource management.
+		try (OutputStream os = new FileOutputStream(filePath)) {
+			toProperties().store(os, "bs7base64 engine thresholds");
+		}
+	}
+
+	/**
+	 * Measures the engines on this machine and returns a dispatcher with the measured thresholds.
+	 * Each engine is run with random data of 64 bytes to 4 MB, the threshold of an engine is the
+	 * smallest size from which on it is faster than the engines of the smaller sizes. The
+	 * calibration takes a few seconds.
+	 * @return Dispatcher with the measured thresholds.
+	 */
+	public static MyBase64Dispatcher calibrate() {
+		Random random = new Random(42);
+		int[] encode = calibrate(random, true);
+		int[] decode = calibrate(random, false);
+		return new MyBase64Dispatcher(encode[0], encode[1], decode[0], decode[1]);
+	}
+
+	/**
+	 * Converts the given byte data to Base64 with the default dispatcher.
+	 * @param data Data to convert.
+	 * @return Base64 encoded ASCII characters.
+	 */
+	public static byte[] encodeDefault(byte[] data) {
+		return getDefault().encode(data);
+	}
+
+	/**
+	 * Decodes the Base64 characters with the default dispatcher.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static byte[] decodeDefault(byte[] src) {
+		return getDefault().decode(src);
+	}
+
+	/**
+	 * Converts the given byte data to Base64 with the engine for its size.
+	 * @param data Data to convert.
+	 * @return Base64 encoded ASCII characters.
+	 */
+	public byte[] encode(byte[] data) {
+		if (data.length >= encodeParallel) {
+			return MyBase64Parallel.encode(data);
+		}
+		if (data.length >= encodeSimd) {
+			return MyBase64Simd.encode(data);
+		}
+		return MyBase64bitsFile.binToBase64Block(data);
+	}
+
+	/**
+	 * Decodes the Base64 characters with the engine for their size.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public byte[] decode(byte[] src) {
+		if (src.length >= decodeParallel) {
+			return MyBase64Parallel.decode(src);
+		}
+		if (src.length >= decodeSimd) {
+			return MyBase64Simd.isAvailable() ? MyBase64Simd.decode(src) : MyBase64Swar.decode(src);
+		}
+		return MyBase64bitsFile.base64ToBinBlock(src);
+	}
+
+	/**
+	 * Returns the name of the engine which converts data of the given size, the names are
+	 * the engine names of MyBase64Metrics.
+	 * @param size Number of bytes (encode) or characters (decode).
+	 * @param encode true for encoding, false for decoding.
+	 * @return Name of the engine.
+	 */
+	public String engineFor(int size, boolean encode) {
+		if (size >= (encode ? encodeParallel : decodeParallel)) {
+			return MyBase64Metrics.PARALLEL;
+		}
+		if (size >= (encode ? encodeSimd : decodeSimd)) {
+			return MyBase64Simd.isAvailable() ? MyBase64Metrics.SIMD : MyBase64Metrics.SWAR;
+		}
+		return MyBase64Metrics.BLOCK;
+	}
+
+	@Override
+	public String toString() {
+		return "encode: simd from " + format(encodeSimd) + ", parallel from " + format(encodeParallel)
+				+ "; decode: simd from " + format(decodeSimd) + ", parallel from " + format(decodeParallel);
+	}
+
+	/**
+	 * Measures block, SIMD and parallel engine for all sizes and returns the SIMD and the
+	 * parallel threshold.
+	 */
+	private static int[] calibrate(Random random, boolean encode) {
+		int n = CALIBRATION_SIZES.length;
+		double[][] nanos = new double[3][n]; // nanoseconds per operation of block, simd and parallel
+		for (int i = 0; i < n; i++) {
+			byte[] data = new byte[CALIBRATION_SIZES[i]];
+			random.nextBytes(data);
+			byte[] input = encode ? data : MyBase64bitsFile.binToBase64Block(data);
+			for (int engine = 0; engine < 3; engine++) {
+				measure(engine, encode, input, CALIBRATION_NANOS); // warm-up
+				nanos[engine][i] = measure(engine, encode, input, CALIBRATION_NANOS);
+			}
+		}
+		int[] sizes = new int[n]; // the thresholds are compared with the input size
+		for (int i = 0; i < n; i++) {
+			sizes[i] = encode ? CALIBRATION_SIZES[i] : MyBase64Tools.encodedLength(CALIBRATION_SIZES[i]);
+		}
+		boolean simd = encode ? MyBase64Simd.isAvailable() : true;
+		int simdThreshold = simd ? threshold(nanos[1], nanos[0], sizes) : NEVER;
+		double[] best = new double[n]; // the engine that is used below the parallel threshold
+		for (int i = 0; i < n; i++) {
+			best[i] = sizes[i] >= simdThreshold ? nanos[1][i] : nanos[0][i];
+		}
+		int parallelThreshold = Runtime.getRuntime().availableProcessors() > 1 ? threshold(nanos[2], best, sizes) : NEVER;
+		return new int[] { simdThreshold, parallelThreshold };
+	}
+
+	/**
+	 * Returns the smallest size from which on the candidate is faster than the current engine
+	 * for all measured sizes, NEVER if it is slower for the largest size.
+	 */
+	private static int threshold(double[] candidate, double[] current, int[] sizes) {
+		int threshold = NEVER;
+		for (int i = sizes.length - 1; i >= 0 && candidate[i] < current[i]; i--) {
+			threshold = sizes[i];
+		}
+		return threshold;
+	}
+
+	/**
+	 * Runs an engine until the given time has passed and returns the nanoseconds per operation.
+	 */
+	private static double measure(int engine, boolean encode, byte[] input, long nanos) {
+		long ops = 0;
+		int result = 0;
+		long start = System.nanoTime();
+		long now;
+		do {
+			result += convert(engine, encode, input).length;
+			ops++;
+			now = System.nanoTime();
+		} while (now - start < nanos);
+		sink = result;
+		return (double)(now - start) / ops;
+	}
+
+	private static byte[] convert(int engine, boolean encode, byte[] input) {
+		switch (engine) {
+		case 0:
+			return encode ? MyBase64bitsFile.binToBase64Block(input) : MyBase64bitsFile.base64ToBinBlock(input);
+		case 1:
+			return encode ? MyBase64Simd.encode(input) : MyBase64Simd.isAvailable() ? MyBase64Simd.decode(input) : MyBase64Swar.decode(input);
+		default:
+			return encode ? MyBase64Parallel.encode(input) : MyBase64Parallel.decode(input);
+		}
+	}
+
+	private static int threshold(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		value = value.trim();
+		if (value.equalsIgnoreCase("never")) {
+			return NEVER;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid threshold " + key + "=" + value);
+		}
+	}
+
+	private static String format(int threshold) {
+		return threshold == NEVER ? "never" : String.valueOf(threshold);
+	}
+}
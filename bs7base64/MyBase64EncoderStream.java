@@ -0,0 +1,28 @@
+package bs7base64;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that encodes all written bytes to Base64 and passes the ASCII characters
+ * to the wrapped output stream. Only complete groups of 3 bytes are encoded while writing,
+ * the remaining 1 or 2 bytes are carried to the next write call. The final group including
+ * the padding is written on close(). The memory usage is bounded by the size of the internal buffer.
+ * The stream is the radix stream of MyBase64Codec.STANDARD (see MyRadixCodec.encodingStream),
+ * this class only gives it a name and a public constructor.
+ */
+public class MyBase64EncoderStream extends FilterOutputStream {
+	/**
+	 * Creates an encoding stream on top of the given stream.
+	 * @param out Stream which receives the Base64 characters.
+	 */
+	public MyBase64EncoderStream(OutputStream out) {
+		super(MyBase64Codec.STANDARD.encodingStream(out));
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len); // FilterOutputStream would write the bytes one by one
+	}
+}
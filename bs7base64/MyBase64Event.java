@@ -0,0 +1,50 @@
+package bs7base64;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event for one encode or decode call of an engine. The duration is the
+ * duration of the event. Calls below the threshold (default 1 ms, can be changed in the
+ * recording settings with bs7base64.Codec#threshold) are not recorded. If the event is
+ * disabled and the totals of MyBase64Metrics are off, no event is created at all, so an engine
+ * call only pays for the check.
+ * The events are created by MyBase64Metrics.begin and committed by MyBase64Metrics.end.
+ */
+@Name("bs7base64.Codec")
+@Label("Base64 Codec")
+@Category("bs7base64")
+@Description("Encode or decode call of a Base64 engine")
+@Threshold("1 ms")
+@StackTrace(false)
+public class MyBase64Event extends jdk.jfr.Event {
+	@Label("Engine")
+	@Description("Engine which converted the data: simple, bits, block, swar, simd, parallel or radix")
+	String engine;
+
+	@Label("Operation")
+	@Description("encode or decode")
+	String operation;
+
+	@Label("Input Size")
+	@Description("Number of bytes (encode) or Base64 characters (decode) of the input")
+	@DataAmount
+	long inputSize;
+
+	@Label("Output Size")
+	@Description("Number of Base64 characters (encode) or bytes (decode) of the output")
+	@DataAmount
+	long outputSize;
+
+	@Label("Failed")
+	@Description("true if the call failed with an exception, the output size is 0 then")
+	boolean failed;
+
+	transient long startNanos; // for MyBase64Metrics, not part of the event
+	transient boolean counted; // true if the call is added to the totals
+}
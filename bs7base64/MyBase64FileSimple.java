@@ -25,7 +25,7 @@ public class MyBase64FileSimple {
 		
 		System.out.println(System.currentTimeMillis() - ts);
 		
-		MyBase64Tools.writeToTextFile(fileCodePath, sCode);
+		MyBase64Tools.writeToAsciiFile(fileCodePath, sCode); // the Base64 characters are pure ASCII
 		MyBase64Tools.writeToBinFile(fileDecodePath, sResult);
 	}
 		
@@ -26,7 +26,7 @@ public class MyBase64FileSimple2 {
 		
 		System.out.println(System.currentTimeMillis() - ts);
 
-		MyBase64Tools.writeToTextFile(fileCodePath, sCode);
+		MyBase64Tools.writeToAsciiFile(fileCodePath, sCode); // the Base64 characters are pure ASCII
 		MyBase64Tools.writeToBinFile(fileDecodePath, sResult);
 	}
 	
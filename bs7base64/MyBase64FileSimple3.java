@@ -5,10 +5,15 @@ import java.io.IOException;
 
 /**
  * Performance test for a base 64 encoding and decoding of a given file. 
- * The class implements the Base64 with simple String manipulations based on 
- * a StringBuilder. The decoding table will not use a Hashtable but an array instead.
+ * The class implements the Base64 on a MyBitBuffer instead of the 8 bit String pattern.
+ * The 6 bit groups are read from the buffer, the decoding table is an array. The methods
+ * with the String pattern pack it into a MyBitBuffer first, so they only need memory for
+ * the bit pattern itself.
  */
 public class MyBase64FileSimple3 {
+	private static final char[] ENCODING = MyBase64Tools.buildEncoding(); // built once, never changed
+	private static final byte[] DECODING = MyBase64Tools.buildDecodingBytes();
+
 	public static void main(String[] args) throws FileNotFoundException, IOException {
 		String fileName = "BigDB.zip";
 		String path = "C:\\tmp\\";
@@ -16,81 +21,93 @@ public class MyBase64FileSimple3 {
 		String fileCodePath = path + fileName + ".txt";
 		String fileDecodePath = path + "dec_" + fileName;
 		
-		String sText = MyBase64Tools.readFileToBinStringBuilder(fileOrigPath);
+		MyBitBuffer bText = MyBase64Tools.readFileToBitBuffer(fileOrigPath); // 1 bit per bit instead of a character
 
 		long ts = System.currentTimeMillis();
 		
-		String sCode = binToBase64(sText, 8);
-		String sResult = base64ToBinString(sCode, 8);
+		String sCode = binToBase64(bText, 8);
+		MyBitBuffer bResult = base64ToBitBuffer(sCode, 8);
 		
 		System.out.println(System.currentTimeMillis() - ts);
 		
-		MyBase64Tools.writeToTextFile(fileCodePath, sCode);
-		MyBase64Tools.writeToBinFile(fileDecodePath, sResult);
+		MyBase64Tools.writeToAsciiFile(fileCodePath, sCode); // the Base64 characters are pure ASCII
+		MyBase64Tools.writeToBinFile(fileDecodePath, bResult);
 	}
 	
 	/**
 	 * Converts the given String data to a Base64 String and returns it. 
-	 * @param textIn String to convert.
-	 * @param bitCount Number of Bits per input (should be 16).
+	 * @param textIn String with the bit pattern to convert.
+	 * @param bitCount Number of Bits per input (8 for bytes).
 	 * @return Base64 encoded String.
 	 */	
 	public static String binToBase64(String textIn, int bitCount) {
-		StringBuilder sOut = new StringBuilder();
-
-		char[] encoding = MyBase64Tools.buildEncoding(); 
-		
-		int padding = (6 - textIn.length() * bitCount % 6) % 6;  // For padding calculation we need the rest of all input bits divided by 6 ("modulo")
-                                                                 // 6 minus this number is the amount of padding bits. % 6 is needed to prevent 6 padding bits. 
+		return binToBase64(MyBitBuffer.fromBitString(textIn), bitCount); // the bit pattern is packed before the conversion
+	}
+	
+	/**
+	 * Converts the Base64 encoded String to a bit pattern String
+	 * @param base64In Base64 encoded String 
+	 * @param bitCount Number of Bits per input (8 for bytes).
+	 * @return Bit pattern String
+	 */
+	public static String base64ToBinString(String base64In, int bitCount) {
+		return base64ToBitBuffer(base64In, bitCount).toBitString();
+	}
 
-		textIn = MyBase64Tools.addCharRight(textIn, padding, '0'); // add the padding bits	
+	/**
+	 * Converts the given bit data to a Base64 String and returns it. Works like
+	 * binToBase64(String, int), but reads the 6 bit groups directly from the buffer.
+	 * @param bitsIn Bits to convert.
+	 * @param bitCount Number of Bits per input (8 for bytes), the buffer must hold complete inputs.
+	 * @return Base64 encoded String.
+	 */
+	public static String binToBase64(MyBitBuffer bitsIn, int bitCount) {
+		if (bitsIn.length() % bitCount != 0) {
+			throw new IllegalArgumentException("The number of bits is not a multiple of " + bitCount);
+		}
+		long bits = bitsIn.length();
+		int padding = (int)((6 - bits % 6) % 6); // number of padding bits to fill the last group
+		StringBuilder sOut = new StringBuilder(Math.toIntExact((bits + padding) / 6 + padding / 2));
 
-		int size = textIn.length() / 6;
-		String[] indexGroups = new String[size];
-		
-		int pos = 0; // position in the target array
-		int iFrom = 0;
-		for (int iTo = 6; iTo <= textIn.length(); iTo += 6) {
-			indexGroups[pos++] = textIn.substring(iFrom, iTo);
-			iFrom = iTo;
+		char[] encoding = ENCODING;
+		long pos = 0;
+		for (; pos + 6 <= bits; pos += 6) {
+			sOut.append(encoding[(int)bitsIn.read(pos, 6)]);
 		}
-		for (String index : indexGroups) {
-			sOut.append(encoding[Integer.parseInt(index, 2)]);
+		if (padding > 0) { // the last group is filled with padding bits
+			sOut.append(encoding[(int)bitsIn.read(pos, 6 - padding) << padding]);
 		}
-		
 		for (int i = 0; i < padding / 2; i++) {  // add the padding indicators
-			sOut.append("=");
+			sOut.append('=');
 		}
 
 		return sOut.toString();
 	}
-	
+
 	/**
-	 * Converts the Base64 encoded String to a clear text String
-	 * @param base64In Base64 encoded String 
-	 * @param bitCount Number of Bits per input (should be 16).
-	 * @return Clear text String
+	 * Converts the Base64 encoded String to bit data. Works like base64ToBinString(String, int),
+	 * but appends the 6 bit groups directly to a buffer.
+	 * @param base64In Base64 encoded String
+	 * @param bitCount Number of Bits per input (8 for bytes), incomplete inputs at the end are removed.
+	 * @return Decoded bits.
 	 */
-	public static String base64ToBinString(String base64In, int bitCount) {
-		StringBuilder sCodes = new StringBuilder();
-		String[] decoding = MyBase64Tools.buildDecodingStringArray(); // use array for decoding
-		
-		int fillBits = 0;  // extract number of fill bits in order to remove them from the output string
-		for (int i = 0; i < 2; i++) {
-			if (base64In.endsWith("=")) {
-				fillBits += 2;
-				base64In= base64In.substring(0, base64In.length() - 1);
-			}
+	public static MyBitBuffer base64ToBitBuffer(String base64In, int bitCount) {
+		int chars = base64In.length();
+		int fillBits = 0;  // extract number of fill bits in order to remove them from the output
+		for (int i = 0; i < 2 && chars > 0 && base64In.charAt(chars - 1) == '='; i++) {
+			fillBits += 2;
+			chars--;
 		}
-		
-		for (char c : base64In.toCharArray()) {
-			sCodes.append(decoding[c]); // access array for decoding info
+
+		byte[] decoding = DECODING;
+		MyBitBuffer bits = new MyBitBuffer(chars * 6L);
+		for (int i = 0; i < chars; i++) {
+			bits.append(decoding[base64In.charAt(i)], 6); // access array for decoding info
 		}
-		
-		String sOut = sCodes.toString();
-		sOut = sOut.substring(0, sCodes.length() - fillBits);
+		long length = Math.max(0, bits.length() - fillBits);
+		bits.truncate(length - length % bitCount);
 
-		return sOut;
+		return bits;
 	}
 
 }
@@ -0,0 +1,48 @@
+package bs7base64;
+
+/**
+ * Exception for invalid Base64 data. Besides the message it holds the position of the
+ * first character that could not be decoded.
+ */
+public class MyBase64FormatException extends IllegalArgumentException {
+	private static final long serialVersionUID = 1L;
+
+	private final String reason;
+	private final long position;
+
+	/**
+	 * @param reason Description of the error.
+	 * @param position Position of the first invalid character in the input.
+	 */
+	public MyBase64FormatException(String reason, long position) {
+		super(reason + " at position " + position);
+		this.reason = reason;
+		this.position = position;
+	}
+
+	/**
+	 * Creates a copy of this exception with the position moved by offset. This is needed if
+	 * the invalid data was decoded as part of a larger input.
+	 * @param offset Position of the decoded part in the larger input.
+	 * @return Exception with the position in the larger input.
+	 */
+	public MyBase64FormatException withOffset(long offset) {
+		MyBase64FormatException e = new MyBase64FormatException(reason, position + offset);
+		e.initCause(this);
+		return e;
+	}
+
+	/**
+	 * @return Description of the error without the position.
+	 */
+	public String getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return Position of the first invalid character in the input.
+	 */
+	public long getPosition() {
+		return position;
+	}
+}
@@ -0,0 +1,143 @@
+package bs7base64;
+
+import java.util.Arrays;
+
+/**
+ * Incremental Base64 decoder for characters that arrive in fragments of any size. Every call
+ * of update decodes the complete groups of 4 characters and carries the remaining 1 to 3
+ * characters to the next call, so no character is looked at twice. finish() decodes the
+ * carried characters, which may be an unpadded last group. A decoder keeps state and must
+ * not be shared between threads.
+ */
+public class MyBase64IncrementalDecoder {
+	private final MyBase64Codec codec;
+	private final byte[] carry = new byte[4]; // characters of an incomplete group from the last update call
+	private int carryCount = 0; // number of characters in carry
+	private long position = 0; // number of decoded characters (for error messages)
+	private boolean padded = false; // true if a group with padding was decoded, no more data may follow
+
+	/**
+	 * Creates a decoder for the standard alphabet.
+	 */
+	public MyBase64IncrementalDecoder() {
+		this(MyBase64Codec.STANDARD);
+	}
+
+	/**
+	 * Creates a decoder for the alphabet of the given codec.
+	 * @param codec Codec which defines the alphabet.
+	 */
+	public MyBase64IncrementalDecoder(MyBase64Codec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * Calculates the maximum number of bytes that update writes for len characters.
+	 * @param len Number of characters passed to update.
+	 * @return Number of bytes.
+	 */
+	public int updateLength(int len) {
+		return (carryCount + len) / 4 * 3;
+	}
+
+	/**
+	 * Decodes all complete groups of the carried characters and the given fragment.
+	 * @param chunk Fragment of the Base64 characters as ASCII bytes.
+	 * @param off Start position in chunk.
+	 * @param len Number of characters of the fragment.
+	 * @param dst Target array, must have space for updateLength(len) bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If the data contains invalid characters or data after the padding.
+	 * The position of the exception counts all characters since the start or the last finish().
+	 */
+	public int update(byte[] chunk, int off, int len, byte[] dst, int dstPos) {
+		int dp = dstPos;
+		if (carryCount > 0) { // complete the group that was left over from the last call
+			int n = Math.min(len, 4 - carryCount);
+			System.arraycopy(chunk, off, carry, carryCount, n);
+			carryCount += n;
+			off += n;
+			len -= n;
+			if (carryCount < 4) {
+				return 0;
+			}
+			dp += decodeGroups(carry, 0, 4, dst, dp);
+			carryCount = 0;
+		}
+		int full = len / 4 * 4; // all full groups are decoded directly from the callers array
+		dp += decodeGroups(chunk, off, full, dst, dp);
+		carryCount = len - full; // keep the rest of 1 to 3 characters for the next call
+		System.arraycopy(chunk, off + full, carry, 0, carryCount);
+		return dp - dstPos;
+	}
+
+	/**
+	 * Decodes all complete groups of the carried characters and the given fragment.
+	 * @param chunk Fragment of the Base64 characters as ASCII bytes.
+	 * @param off Start position in chunk.
+	 * @param len Number of characters of the fragment.
+	 * @return Decoded bytes, can be empty.
+	 * @throws MyBase64FormatException If the data contains invalid characters or data after the padding.
+	 */
+	public byte[] update(byte[] chunk, int off, int len) {
+		byte[] out = new byte[updateLength(len)];
+		int n = update(chunk, off, len, out, 0);
+		return n == out.length ? out : Arrays.copyOf(out, n);
+	}
+
+	/**
+	 * Decodes the carried characters as last group and resets the decoder, so it can be used
+	 * for the next data.
+	 * @param dst Target array, must have space for 2 bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If the last group is incomplete (a single character).
+	 */
+	public int finish(byte[] dst, int dstPos) {
+		try {
+			return decodeGroups(carry, 0, carryCount, dst, dstPos);
+		} finally {
+			reset();
+		}
+	}
+
+	/**
+	 * Decodes the carried characters as last group and resets the decoder, so it can be used
+	 * for the next data.
+	 * @return Decoded bytes of the last group, can be empty.
+	 * @throws MyBase64FormatException If the last group is incomplete (a single character).
+	 */
+	public byte[] finish() {
+		byte[] out = new byte[codec.decodedLength(carry, 0, carryCount)];
+		finish(out, 0);
+		return out;
+	}
+
+	/**
+	 * Discards the carried characters and the position.
+	 */
+	public void reset() {
+		carryCount = 0;
+		position = 0;
+		padded = false;
+	}
+
+	private int decodeGroups(byte[] src, int pos, int len, byte[] dst, int dstPos) {
+		if (len == 0) {
+			return 0;
+		}
+		if (padded) {
+			throw new MyBase64FormatException("Data after padding", position);
+		}
+		int n;
+		try {
+			n = codec.decode(src, pos, len, dst, dstPos);
+		} catch (MyBase64FormatException e) {
+			throw e.withOffset(position - pos); // the position in src is converted to the position in the data
+		}
+		position += len;
+		padded = src[pos + len - 1] == '=';
+		return n;
+	}
+}
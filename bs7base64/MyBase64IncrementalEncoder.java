@@ -0,0 +1,111 @@
+package bs7base64;
+
+/**
+ * Incremental Base64 encoder for data that arrives in fragments of any size. Every call of
+ * update encodes the complete groups of 3 bytes and carries the remaining 1 or 2 bytes to the
+ * next call, so no byte is looked at twice. finish() encodes the carried bytes including the
+ * padding. An encoder keeps state and must not be shared between threads.
+ */
+public class MyBase64IncrementalEncoder {
+	private final MyBase64Codec codec;
+	private final byte[] carry = new byte[3]; // bytes of an incomplete group from the last update call
+	private int carryCount = 0; // number of bytes in carry
+
+	/**
+	 * Creates an encoder for the standard alphabet.
+	 */
+	public MyBase64IncrementalEncoder() {
+		this(MyBase64Codec.STANDARD);
+	}
+
+	/**
+	 * Creates an encoder for the alphabet of the given codec.
+	 * @param codec Codec which defines the alphabet and the padding.
+	 */
+	public MyBase64IncrementalEncoder(MyBase64Codec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * Calculates the maximum number of characters that update writes for len bytes.
+	 * @param len Number of bytes passed to update.
+	 * @return Number of characters.
+	 */
+	public int updateLength(int len) {
+		return (carryCount + len) / 3 * 4;
+	}
+
+	/**
+	 * Encodes all complete groups of the carried bytes and the given fragment.
+	 * @param chunk Fragment of the data.
+	 * @param off Start position in chunk.
+	 * @param len Number of bytes of the fragment.
+	 * @param dst Target array, must have space for updateLength(len) characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters written.
+	 */
+	public int update(byte[] chunk, int off, int len, byte[] dst, int dstPos) {
+		int dp = dstPos;
+		if (carryCount > 0) { // complete the group that was left over from the last call
+			int n = Math.min(len, 3 - carryCount);
+			System.arraycopy(chunk, off, carry, carryCount, n);
+			carryCount += n;
+			off += n;
+			len -= n;
+			if (carryCount < 3) {
+				return 0;
+			}
+			dp += codec.encode(carry, 0, 3, dst, dp);
+			carryCount = 0;
+		}
+		int full = len / 3 * 3; // all full groups are encoded directly from the callers array
+		dp += codec.encode(chunk, off, full, dst, dp);
+		carryCount = len - full; // keep the rest of 1 or 2 bytes for the next call
+		System.arraycopy(chunk, off + full, carry, 0, carryCount);
+		return dp - dstPos;
+	}
+
+	/**
+	 * Encodes all complete groups of the carried bytes and the given fragment.
+	 * @param chunk Fragment of the data.
+	 * @param off Start position in chunk.
+	 * @param len Number of bytes of the fragment.
+	 * @return Encoded ASCII characters, can be empty.
+	 */
+	public byte[] update(byte[] chunk, int off, int len) {
+		byte[] out = new byte[updateLength(len)];
+		update(chunk, off, len, out, 0);
+		return out;
+	}
+
+	/**
+	 * Encodes the carried bytes including the padding and resets the encoder, so it can be used
+	 * for the next data.
+	 * @param dst Target array, must have space for 4 characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters written.
+	 */
+	public int finish(byte[] dst, int dstPos) {
+		int n = codec.encode(carry, 0, carryCount, dst, dstPos);
+		carryCount = 0;
+		return n;
+	}
+
+	/**
+	 * Encodes the carried bytes including the padding and resets the encoder, so it can be used
+	 * for the next data.
+	 * @return Encoded ASCII characters of the last group, can be empty.
+	 */
+	public byte[] finish() {
+		byte[] out = new byte[codec.encodedLength(carryCount)];
+		finish(out, 0);
+		return out;
+	}
+
+	/**
+	 * Discards the carried bytes.
+	 */
+	public void reset() {
+		carryCount = 0;
+	}
+}
@@ -0,0 +1,196 @@
+package bs7base64;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Performance test for a base 64 encoding and decoding of files larger than 2 GB.
+ * The codec works with 64 bit positions on MyLargeBuffer, so neither the input nor the
+ * output size is limited by the size of an array. The data of each chunk is converted with the
+ * ByteBuffer block encoder and decoder of MyBase64bitsFile, only a block which crosses
+ * a chunk border is copied into a small array.
+ */
+public class MyBase64Large {
+	public static void main(String[] args) throws IOException {
+		String fileName = "BigDB.zip";
+		String path = "C:\\tmp\\";
+		String fileOrigPath = path + fileName;
+		String fileCodePath = path + fileName + ".txt";
+		String fileDecodePath = path + "dec_" + fileName;
+
+		long ts = System.currentTimeMillis();
+
+		encodeFile(fileOrigPath, fileCodePath);
+		decodeFile(fileCodePath, fileDecodePath);
+
+		System.out.println(System.currentTimeMillis() - ts);
+	}
+
+	/**
+	 * Calculates the number of Base64 characters of len bytes including the padding.
+	 * @param len Number of bytes.
+	 * @return Number of characters.
+	 */
+	public static long encodedLength(long len) {
+		return (len + 2) / 3 * 4;
+	}
+
+	/**
+	 * Calculates the number of bytes that len Base64 characters decode to.
+	 * @param base64 Buffer with Base64 characters as ASCII bytes.
+	 * @param pos Start position of the characters.
+	 * @param len Number of characters.
+	 * @return Number of decoded bytes.
+	 */
+	public static long decodedLength(MyLargeBuffer base64, long pos, long len) {
+		long chars = len;
+		if (len > 0 && len % 4 == 0 && base64.get(pos + len - 1) == '=') {
+			chars -= base64.get(pos + len - 2) == '=' ? 2 : 1;
+		}
+		return chars / 4 * 3 + chars % 4 * 3 / 4;
+	}
+
+	/**
+	 * Encodes len bytes of src to Base64 and writes the ASCII characters to dst.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target buffer, must have space for encodedLength(len) characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters written.
+	 */
+	public static long encode(MyLargeBuffer src, long srcPos, long len, MyLargeBuffer dst, long dstPos) {
+		long sp = srcPos;
+		long dp = dstPos;
+		long end = srcPos + len / 3 * 3;
+		byte[] in = new byte[3]; // for the blocks that cross a chunk border
+		byte[] out = new byte[4];
+		while (sp < end) {
+			// as many complete blocks as both chunks can hold
+			long n = Math.min(end - sp, Math.min(src.remainingInChunk(sp), dst.remainingInChunk(dp) / 4 * 3L)) / 3 * 3;
+			if (n > 0) {
+				dp += MyBase64bitsFile.encodeBlock(src.chunk(sp), src.offset(sp), (int)n, dst.chunk(dp), dst.offset(dp), MyBase64Tools.ENCODING_PAIRS);
+				sp += n;
+			} else {
+				src.get(sp, in, 0, 3);
+				MyBase64bitsFile.encodeBlock(in, 0, 3, out, 0, MyBase64Tools.ENCODING_PAIRS);
+				dst.put(dp, out, 0, 4);
+				sp += 3;
+				dp += 4;
+			}
+		}
+		int rest = (int)(srcPos + len - sp);
+		if (rest > 0) { // the last 1 or 2 bytes with padding
+			src.get(sp, in, 0, rest);
+			MyBase64bitsFile.encodeBlock(in, 0, rest, out, 0, MyBase64Tools.ENCODING_PAIRS);
+			dst.put(dp, out, 0, 4);
+			dp += 4;
+		}
+		return dp - dstPos;
+	}
+
+	/**
+	 * Decodes len Base64 characters of src and writes the bytes to dst. The padding is only
+	 * allowed in the last block.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target buffer, must have space for decodedLength(src, srcPos, len) bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block,
+	 * the position is the position in src.
+	 */
+	public static long decode(MyLargeBuffer src, long srcPos, long len, MyLargeBuffer dst, long dstPos) {
+		long sp = srcPos;
+		long dp = dstPos;
+		long end = len > 0 ? srcPos + (len - 1) / 4 * 4 : srcPos; // the last block is decoded separately, it may hold padding
+		byte[] in = new byte[4]; // for the blocks that cross a chunk border
+		byte[] out = new byte[3];
+		while (sp < end) {
+			int n = (int)(Math.min(end - sp, Math.min(src.remainingInChunk(sp), dst.remainingInChunk(dp) / 3 * 4L)) / 4 * 4);
+			int written;
+			if (n > 0) {
+				try {
+					written = MyBase64bitsFile.decodeBlock(src.chunk(sp), src.offset(sp), n, dst.chunk(dp), dst.offset(dp), MyBase64Tools.DECODING_PAIRS);
+				} catch (MyBase64FormatException e) {
+					throw e.withOffset(sp - src.offset(sp));
+				}
+			} else {
+				n = 4;
+				src.get(sp, in, 0, 4);
+				written = decodeArray(in, 4, out, sp);
+				dst.put(dp, out, 0, written);
+			}
+			if (written < n / 4 * 3) { // the decoder has taken '=' at the end of the range as padding
+				throw new MyBase64FormatException("Illegal Base64 character " + (int)'=', sp + n - (n / 4 * 3 - written));
+			}
+			sp += n;
+			dp += written;
+		}
+		int rest = (int)(srcPos + len - sp);
+		src.get(sp, in, 0, rest);
+		int written = decodeArray(in, rest, out, sp);
+		dst.put(dp, out, 0, written);
+		return dp + written - dstPos;
+	}
+
+	/**
+	 * Encodes the binary file to a Base64 text file. Existing files will be overwritten.
+	 * @param filePathIn Path of the binary file.
+	 * @param filePathOut Path of the generated text file.
+	 * @throws IOException In case of any read or write error.
+	 */
+	public static void encodeFile(String filePathIn, String filePathOut) throws IOException {
+		// The files are handled with automatic resource management.
+		try (FileChannel in = FileChannel.open(Paths.get(filePathIn), StandardOpenOption.READ);
+				FileChannel out = openTarget(Paths.get(filePathOut))) {
+			long size = in.size();
+			MyLargeBuffer src = MyLargeBuffer.map(in, MapMode.READ_ONLY, 0, size);
+			MyLargeBuffer dst = MyLargeBuffer.map(out, MapMode.READ_WRITE, 0, encodedLength(size));
+			encode(src, 0, size, dst, 0);
+		}
+	}
+
+	/**
+	 * Decodes the Base64 text file to a binary file. Existing files will be overwritten.
+	 * @param filePathIn Path of the Base64 text file.
+	 * @param filePathOut Path of the generated binary file.
+	 * @throws IOException In case of any read or write error or invalid Base64 data.
+	 */
+	public static void decodeFile(String filePathIn, String filePathOut) throws IOException {
+		// The files are handled with automatic resource management.
+		try (FileChannel in = FileChannel.open(Paths.get(filePathIn), StandardOpenOption.READ);
+				FileChannel out = openTarget(Paths.get(filePathOut))) {
+			long size = in.size();
+			MyLargeBuffer src = MyLargeBuffer.map(in, MapMode.READ_ONLY, 0, size);
+			MyLargeBuffer dst = MyLargeBuffer.map(out, MapMode.READ_WRITE, 0, decodedLength(src, 0, size));
+			try {
+				decode(src, 0, size, dst, 0);
+			} catch (MyBase64FormatException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Decodes a block that was copied into an array, error positions are converted to positions in the buffer.
+	 */
+	private static int decodeArray(byte[] in, int len, byte[] out, long pos) {
+		try {
+			return MyBase64bitsFile.decodeBlock(in, 0, len, out, 0, MyBase64Tools.DECODING_PAIRS);
+		} catch (MyBase64FormatException e) {
+			throw e.withOffset(pos);
+		}
+	}
+
+	private static FileChannel openTarget(Path path) throws IOException {
+		// READ is needed for the mapping, even if the file is only written
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+}
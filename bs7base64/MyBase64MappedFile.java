@@ -0,0 +1,97 @@
+package bs7base64;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Performance test for a base 64 encoding and decoding of a given file.
+ * The files are mapped into memory with FileChannel.map, so the codec works directly on the
+ * page cache. Neither the input nor the output is copied to the heap. The files are mapped in
+ * windows, because a single mapping is limited to 2 GB.
+ */
+public class MyBase64MappedFile {
+	/**
+	 * Number of input bytes which are mapped at once (multiple of 3, the output window is 4/3 larger).
+	 */
+	public static final int WINDOW_SIZE = 3 * 64 * 1024 * 1024;
+
+	public static void main(String[] args) throws IOException {
+		String fileName = "BigDB.zip";
+		String path = "C:\\tmp\\";
+		String fileOrigPath = path + fileName;
+		String fileCodePath = path + fileName + ".txt";
+		String fileDecodePath = path + "dec_" + fileName;
+
+		long ts = System.currentTimeMillis();
+
+		encodeFile(fileOrigPath, fileCodePath);
+		decodeFile(fileCodePath, fileDecodePath);
+
+		System.out.println(System.currentTimeMillis() - ts);
+	}
+
+	/**
+	 * Encodes the binary file to a Base64 text file. Existing files will be overwritten.
+	 * @param filePathIn Path of the binary file.
+	 * @param filePathOut Path of the generated text file.
+	 * @throws IOException In case of any read or write error.
+	 */
+	public static void encodeFile(String filePathIn, String filePathOut) throws IOException {
+		// The files are handled with automatic resource management.
+		try (FileChannel in = FileChannel.open(Paths.get(filePathIn), StandardOpenOption.READ);
+				FileChannel out = openTarget(Paths.get(filePathOut))) {
+			long size = in.size();
+			long outPos = 0;
+			for (long inPos = 0; inPos < size; inPos += WINDOW_SIZE) {
+				int len = (int)Math.min(WINDOW_SIZE, size - inPos);
+				int outLen = MyBase64Tools.encodedLength(len);
+				MappedByteBuffer src = in.map(MapMode.READ_ONLY, inPos, len);
+				MappedByteBuffer dst = out.map(MapMode.READ_WRITE, outPos, outLen); // mapping beyond the end enlarges the file
+				MyBase64bitsFile.encodeBlock(src, 0, len, dst, 0, MyBase64Tools.ENCODING_PAIRS);
+				outPos += outLen;
+			}
+		}
+	}
+
+	/**
+	 * Decodes the Base64 text file to a binary file. Existing files will be overwritten.
+	 * @param filePathIn Path of the Base64 text file.
+	 * @param filePathOut Path of the generated binary file.
+	 * @throws IOException In case of any read or write error or invalid Base64 data.
+	 */
+	public static void decodeFile(String filePathIn, String filePathOut) throws IOException {
+		// The files are handled with automatic resource management.
+		try (FileChannel in = FileChannel.open(Paths.get(filePathIn), StandardOpenOption.READ);
+				FileChannel out = openTarget(Paths.get(filePathOut))) {
+			long size = in.size();
+			long window = WINDOW_SIZE / 3 * 4; // the windows hold complete blocks, so only the last one may have a padding
+			long outPos = 0;
+			for (long inPos = 0; inPos < size; inPos += window) {
+				int len = (int)Math.min(window, size - inPos);
+				MappedByteBuffer src = in.map(MapMode.READ_ONLY, inPos, len);
+				int outLen = MyBase64Tools.decodedLength(src, 0, len);
+				if (inPos + len < size && outLen != len / 4 * 3) { // the next window would be written behind a gap
+					throw new IOException("Padding inside the data at file position " + (inPos + len - (len / 4 * 3 - outLen)));
+				}
+				MappedByteBuffer dst = out.map(MapMode.READ_WRITE, outPos, outLen);
+				try {
+					MyBase64bitsFile.decodeBlock(src, 0, len, dst, 0, MyBase64Tools.DECODING_PAIRS);
+				} catch (MyBase64FormatException e) {
+					throw new IOException(e.withOffset(inPos).getMessage(), e);
+				}
+				outPos += outLen;
+			}
+		}
+	}
+
+	private static FileChannel openTarget(Path path) throws IOException {
+		// READ is needed for the mapping, even if the file is only written
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+}
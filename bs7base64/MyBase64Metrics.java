@@ -0,0 +1,245 @@
+package bs7base64;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the encode and decode calls of the engines. The array and String based
+ * entry points of the engines (e.g. MyBase64Simd.encode(byte[]), MyBase64bitsFile.binToBase64Block,
+ * MyBase64bits.textToBase64 or MyRadixCodec.encode(byte[])) report every call here and to the
+ * JDK Flight Recorder (see MyBase64Event), calls that fail with an exception are reported as
+ * failures. The methods which convert into arrays of the caller (e.g. encode(byte[], int, int,
+ * byte[], int)) and the streams are not reported, they are called for small slices and the
+ * measurement would cost more than the conversion.
+ * The totals are only collected while they are enabled, either with setEnabled or with the system
+ * property bs7base64.metrics=true. If neither the totals nor the event are enabled, a call only
+ * pays for the two checks. The counters are LongAdders, so threads that convert at the same time
+ * do not wait for each other.
+ */
+public final class MyBase64Metrics {
+	public static final String SIMPLE = "simple";
+	public static final String BITS = "bits";
+	public static final String BLOCK = "block";
+	public static final String SWAR = "swar";
+	public static final String SIMD = "simd";
+	public static final String PARALLEL = "parallel";
+	public static final String RADIX = "radix";
+
+	/**
+	 * Output size passed to end if the conversion failed.
+	 */
+	static final long FAILED = -1;
+	private static final MyBase64Event PROBE = new MyBase64Event(); // only used to ask whether the event is enabled
+
+	private static volatile boolean enabled = Boolean.getBoolean("bs7base64.metrics");
+	private static final Map<String, Totals[]> TOTALS = new ConcurrentHashMap<>(); // engine -> encode and decode totals
+
+	private MyBase64Metrics() {
+	}
+
+	/**
+	 * Totals of one engine and operation.
+	 */
+	public static final class Totals {
+		private final String engine;
+		private final boolean encode;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder inputSize = new LongAdder();
+		private final LongAdder outputSize = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		Totals(String engine, boolean encode) {
+			this.engine = engine;
+			this.encode = encode;
+		}
+
+		/**
+		 * @return Name of the engine.
+		 */
+		public String getEngine() {
+			return engine;
+		}
+
+		/**
+		 * @return true for the encode totals, false for the decode totals.
+		 */
+		public boolean isEncode() {
+			return encode;
+		}
+
+		/**
+		 * @return Number of calls.
+		 */
+		public long getCalls() {
+			return calls.sum();
+		}
+
+		/**
+		 * @return Number of calls which failed with an exception, they are part of getCalls.
+		 */
+		public long getFailures() {
+			return failures.sum();
+		}
+
+		/**
+		 * @return Number of bytes (encode) or Base64 characters (decode) of all inputs.
+		 */
+		public long getInputSize() {
+			return inputSize.sum();
+		}
+
+		/**
+		 * @return Number of Base64 characters (encode) or bytes (decode) of all successful calls.
+		 */
+		public long getOutputSize() {
+			return outputSize.sum();
+		}
+
+		/**
+		 * @return Duration of all calls in nanoseconds.
+		 */
+		public long getNanos() {
+			return nanos.sum();
+		}
+
+		/**
+		 * @return Input MB per second of all calls.
+		 */
+		public double getMegabytesPerSecond() {
+			return getInputSize() / (1024.0 * 1024.0) * 1e9 / Math.max(1, getNanos());
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-8s %-6s %10d calls %6d failed %14d in %14d out %10.1f ms %10.1f MB/s", engine, encode ? "encode" : "decode",
+					getCalls(), getFailures(), getInputSize(), getOutputSize(), getNanos() / 1e6, getMegabytesPerSecond());
+		}
+
+		private void reset() {
+			calls.reset();
+			failures.reset();
+			inputSize.reset();
+			outputSize.reset();
+			nanos.reset();
+		}
+	}
+
+	/**
+	 * @return true if the totals are collected.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts or stops the collection of the totals, the JFR events are not affected.
+	 * @param on true to collect the totals.
+	 */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	/**
+	 * Returns the live totals of an engine and operation.
+	 * @param engine Name of the engine, e.g. SIMD.
+	 * @param encode true for the encode totals, false for the decode totals.
+	 * @return Totals, all 0 if the engine was not called yet.
+	 */
+	public static Totals get(String engine, boolean encode) {
+		return totals(engine)[encode ? 0 : 1];
+	}
+
+	/**
+	 * @return Totals of all engines and operations which were called at least once.
+	 */
+	public static List<Totals> getAll() {
+		List<Totals> all = new ArrayList<>();
+		for (Totals[] totals : TOTALS.values()) {
+			for (Totals t : totals) {
+				if (t.getCalls() > 0) {
+					all.add(t);
+				}
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * Sets all totals to 0.
+	 */
+	public static void reset() {
+		for (Totals[] totals : TOTALS.values()) {
+			for (Totals t : totals) {
+				t.reset();
+			}
+		}
+	}
+
+	/**
+	 * Starts the measurement of an engine call. Must be followed by end after the conversion,
+	 * also if the conversion fails (in a finally block).
+	 * @return Event of the call, null if neither the totals nor the event are enabled.
+	 */
+	static MyBase64Event begin() {
+		if (!enabled && !PROBE.isEnabled()) { // nothing to measure, no event is created
+			return null;
+		}
+		MyBase64Event event = new MyBase64Event();
+		event.begin();
+		if (enabled) {
+			event.counted = true;
+			event.startNanos = System.nanoTime();
+		}
+		return event;
+	}
+
+	/**
+	 * Ends the measurement of an engine call, adds it to the totals and commits the event if
+	 * the event is enabled and the call took longer than its threshold.
+	 * @param event Event returned by begin, may be null.
+	 * @param engine Name of the engine.
+	 * @param encode true for an encode call, false for a decode call.
+	 * @param inputSize Number of bytes (encode) or Base64 characters (decode) of the input.
+	 * @param outputSize Number of Base64 characters (encode) or bytes (decode) of the output,
+	 * FAILED if the conversion threw an exception.
+	 */
+	static void end(MyBase64Event event, String engine, boolean encode, long inputSize, long outputSize) {
+		if (event == null) {
+			return;
+		}
+		event.end();
+		boolean failed = outputSize == FAILED;
+		if (event.counted) { // the totals were enabled when the call started
+			long nanos = System.nanoTime() - event.startNanos;
+			Totals totals = get(engine, encode);
+			totals.calls.increment();
+			if (failed) {
+				totals.failures.increment();
+			} else {
+				totals.outputSize.add(outputSize);
+			}
+			totals.inputSize.add(inputSize);
+			totals.nanos.add(nanos);
+		}
+		if (event.shouldCommit()) {
+			event.engine = engine;
+			event.operation = encode ? "encode" : "decode";
+			event.inputSize = inputSize;
+			event.outputSize = failed ? 0 : outputSize;
+			event.failed = failed;
+			event.commit();
+		}
+	}
+
+	private static Totals[] totals(String engine) {
+		Totals[] totals = TOTALS.get(engine); // no lambda and no allocation once the engine is known
+		if (totals == null) {
+			totals = TOTALS.computeIfAbsent(engine, e -> new Totals[] { new Totals(e, true), new Totals(e, false) });
+		}
+		return totals;
+	}
+}
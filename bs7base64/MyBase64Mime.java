@@ -0,0 +1,220 @@
+package bs7base64;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base64 with line breaks as used by MIME (RFC 2045) and PEM files (RFC 7468). The encoder
+ * inserts a line separator after every lineLength characters. The decoder is lenient: it skips
+ * whitespace (space, tab, CR and LF) anywhere in the data without copying the data first.
+ * The runs of characters between the line breaks are decoded directly from the source array
+ * with the block decoder, only a group which is split by a line break is collected separately.
+ * Instances are immutable and can be shared between threads.
+ */
+public class MyBase64Mime {
+	private static final boolean[] IGNORABLE = buildIgnorable();
+
+	/** MIME: lines of 76 characters separated by CRLF. */
+	public static final MyBase64Mime MIME = new MyBase64Mime(MyBase64Codec.STANDARD, 76, "\r\n");
+	/** PEM: lines of 64 characters separated by LF. */
+	public static final MyBase64Mime PEM = new MyBase64Mime(MyBase64Codec.STANDARD, 64, "\n");
+
+	private final MyBase64Codec codec;
+	private final int lineLength;
+	private final byte[] lineSeparator;
+
+	/**
+	 * Creates a MIME codec.
+	 * @param codec Codec which defines the alphabet and the padding.
+	 * @param lineLength Maximum number of characters per line, rounded down to a multiple of 4.
+	 * @param lineSeparator Characters between the lines, only whitespace is allowed.
+	 */
+	public MyBase64Mime(MyBase64Codec codec, int lineLength, String lineSeparator) {
+		if (lineLength < 4) {
+			throw new IllegalArgumentException("The line length must be at least 4");
+		}
+		for (char c : lineSeparator.toCharArray()) {
+			if (c >= 128 || !IGNORABLE[c]) {
+				throw new IllegalArgumentException("Illegal line separator character " + (int)c);
+			}
+		}
+		this.codec = codec;
+		this.lineLength = lineLength / 4 * 4; // lines hold complete groups only
+		this.lineSeparator = lineSeparator.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * @return Maximum number of characters per line.
+	 */
+	public int lineLength() {
+		return lineLength;
+	}
+
+	/**
+	 * Calculates the number of characters of len encoded bytes.
+	 * @param len Number of bytes.
+	 * @return Number of characters including padding and line separators.
+	 */
+	public int encodedLength(int len) {
+		int chars = codec.encodedLength(len);
+		long lines = (chars + lineLength - 1L) / lineLength;
+		return Math.toIntExact(chars + Math.max(0, lines - 1) * lineSeparator.length); // long, so a large len does not overflow
+	}
+
+	/**
+	 * Encodes len bytes of src and writes the lines to dst. There is no separator after the last line.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target array, must have space for encodedLength(len) characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters written.
+	 */
+	public int encode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int lineBytes = lineLength / 4 * 3;
+		int sp = srcPos;
+		int end = srcPos + len;
+		int dp = dstPos;
+		while (end - sp > lineBytes) {
+			dp += codec.encode(src, sp, lineBytes, dst, dp);
+			System.arraycopy(lineSeparator, 0, dst, dp, lineSeparator.length);
+			dp += lineSeparator.length;
+			sp += lineBytes;
+		}
+		dp += codec.encode(src, sp, end - sp, dst, dp);
+		return dp - dstPos;
+	}
+
+	/**
+	 * Converts the given data and returns the lines as ASCII characters.
+	 * @param data Data to convert.
+	 * @return Encoded ASCII characters.
+	 */
+	public byte[] encode(byte[] data) {
+		byte[] out = new byte[encodedLength(data.length)];
+		encode(data, 0, data.length, out, 0);
+		return out;
+	}
+
+	/**
+	 * Converts the given data and returns the lines as String.
+	 * @param data Data to convert.
+	 * @return Encoded String.
+	 */
+	public String encodeToString(byte[] data) {
+		return new String(encode(data), StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Calculates the maximum number of bytes that len characters decode to.
+	 * @param len Number of characters including whitespace.
+	 * @return Maximum number of decoded bytes.
+	 */
+	public int maxDecodedLength(int len) {
+		return len / 4 * 3 + (len % 4 == 0 ? 0 : len % 4 - 1);
+	}
+
+	/**
+	 * Decodes len characters of src and writes the bytes to dst. Whitespace is skipped, padding
+	 * is only allowed at the end of the data and may be followed by whitespace only.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target array, must have space for maxDecodedLength(len) bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters, data after the padding or an incomplete group.
+	 */
+	public int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int sp = srcPos;
+		int end = srcPos + len;
+		int dp = dstPos;
+		byte[] group = new byte[4]; // characters of a group that is split by whitespace
+		int[] groupPos = new int[4]; // their positions in src (for error messages)
+		int groupCount = 0;
+		boolean padded = false; // true if a group with padding was decoded, no more data may follow
+		while (true) {
+			while (sp < end && IGNORABLE[src[sp] & 0xff]) { // skip the line break
+				sp++;
+			}
+			if (sp == end) {
+				break;
+			}
+			int runEnd = sp;
+			while (runEnd < end && !IGNORABLE[src[runEnd] & 0xff]) {
+				runEnd++;
+			}
+			if (padded) {
+				throw new MyBase64FormatException("Data after padding", sp);
+			}
+			// complete the group that was split by the line break
+			while (groupCount > 0 && groupCount < 4 && sp < runEnd) {
+				groupPos[groupCount] = sp;
+				group[groupCount++] = src[sp++];
+			}
+			if (groupCount == 4) {
+				dp += decodeGroup(group, groupPos, 4, dst, dp);
+				padded = group[3] == '=';
+				groupCount = 0;
+			}
+			// the complete groups of the run are decoded directly from src
+			int full = (runEnd - sp) / 4 * 4;
+			if (full > 0) {
+				if (padded) {
+					throw new MyBase64FormatException("Data after padding", sp);
+				}
+				dp += codec.decode(src, sp, full, dst, dp);
+				padded = src[sp + full - 1] == '=';
+				sp += full;
+			}
+			if (padded && sp < runEnd) {
+				throw new MyBase64FormatException("Data after padding", sp);
+			}
+			while (sp < runEnd) { // keep the rest of 1 to 3 characters
+				groupPos[groupCount] = sp;
+				group[groupCount++] = src[sp++];
+			}
+		}
+		dp += decodeGroup(group, groupPos, groupCount, dst, dp); // the last group may be incomplete
+		return dp - dstPos;
+	}
+
+	/**
+	 * Decodes the characters and returns the data in an exactly sized array.
+	 * @param src Base64 characters as ASCII bytes, whitespace is skipped.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters, data after the padding or an incomplete group.
+	 */
+	public byte[] decode(byte[] src) {
+		byte[] out = new byte[maxDecodedLength(src.length)];
+		int n = decode(src, 0, src.length, out, 0);
+		return n == out.length ? out : Arrays.copyOf(out, n);
+	}
+
+	/**
+	 * Decodes the given String and returns the data.
+	 * @param src Base64 String, whitespace is skipped.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters, data after the padding or an incomplete group.
+	 */
+	public byte[] decode(String src) {
+		return decode(src.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	private int decodeGroup(byte[] group, int[] groupPos, int count, byte[] dst, int dstPos) {
+		try {
+			return codec.decode(group, 0, count, dst, dstPos);
+		} catch (MyBase64FormatException e) { // the position in group is converted to the position in src
+			throw new MyBase64FormatException(e.getReason(), groupPos[(int)e.getPosition()]);
+		}
+	}
+
+	private static boolean[] buildIgnorable() {
+		boolean[] ignorable = new boolean[256];
+		ignorable[' '] = true;
+		ignorable['\t'] = true;
+		ignorable['\r'] = true;
+		ignorable['\n'] = true;
+		return ignorable;
+	}
+}
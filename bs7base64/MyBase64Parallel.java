@@ -0,0 +1,170 @@
+package bs7base64;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Performance test for a parallel base 64 encoding and decoding of a given file.
+ * The data is split into segments at block boundaries (3 bytes or 4 characters), so every
+ * segment can be converted independently and directly into its final position of the shared
+ * output array. The segments are processed by a ForkJoinPool.
+ */
+public class MyBase64Parallel {
+	/**
+	 * Number of bytes of a segment, which is not split any further (multiple of 3).
+	 */
+	public static final int SEGMENT_SIZE = 3 * 256 * 1024;
+
+	public static void main(String[] args) throws FileNotFoundException, IOException {
+		String fileName = "BigDB.zip";
+		String path = "C:\\tmp\\";
+		String fileOrigPath = path + fileName;
+		String fileCodePath = path + fileName + ".txt";
+		String fileDecodePath = path + "dec_" + fileName;
+
+		byte[] inputData = MyBase64Tools.readFileToBinBytes(fileOrigPath);
+
+		long ts = System.currentTimeMillis();
+
+		byte[] code = encode(inputData);
+		byte[] result = decode(code);
+
+		System.out.println(System.currentTimeMillis() - ts);
+
+		MyBase64Tools.writeToBinFile(fileCodePath, code); // the Base64 characters are pure ASCII
+		MyBase64Tools.writeToBinFile(fileDecodePath, result);
+	}
+
+	/**
+	 * Converts the given byte data to Base64 with the common pool and returns the ASCII characters.
+	 * @param data Data to convert.
+	 * @return Base64 encoded ASCII characters.
+	 */
+	public static byte[] encode(byte[] data) {
+		return encode(data, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Converts the given byte data to Base64 with the given pool and returns the ASCII characters.
+	 * @param data Data to convert.
+	 * @param pool Pool which runs the segments.
+	 * @return Base64 encoded ASCII characters.
+	 */
+	public static byte[] encode(byte[] data, ForkJoinPool pool) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] out = new byte[MyBase64Tools.encodedLength(data.length)];
+			pool.invoke(new EncodeTask(data, 0, data.length, out, 0));
+			outSize = out.length;
+			return out;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.PARALLEL, true, data.length, outSize);
+		}
+	}
+
+	/**
+	 * Decodes the Base64 characters with the common pool and returns the data.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static byte[] decode(byte[] src) {
+		return decode(src, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Decodes the Base64 characters with the given pool and returns the data.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param pool Pool which runs the segments.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static byte[] decode(byte[] src, ForkJoinPool pool) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] dst = new byte[MyBase64Tools.decodedLength(src, 0, src.length)];
+			pool.invoke(new DecodeTask(src, 0, src.length, dst, 0, true));
+			outSize = dst.length;
+			return dst;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.PARALLEL, false, src.length, outSize);
+		}
+	}
+
+	/**
+	 * Encodes a range of bytes. Ranges above SEGMENT_SIZE are split in two halves, the left half
+	 * is always a multiple of 3 bytes, so only the last segment of the data gets a padding.
+	 */
+	private static class EncodeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] src;
+		private final int srcPos;
+		private final int len;
+		private final byte[] dst;
+		private final int dstPos;
+
+		EncodeTask(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+			this.src = src;
+			this.srcPos = srcPos;
+			this.len = len;
+			this.dst = dst;
+			this.dstPos = dstPos;
+		}
+
+		@Override
+		protected void compute() {
+			if (len <= SEGMENT_SIZE) {
+				MyBase64Simd.encode(src, srcPos, len, dst, dstPos);
+				return;
+			}
+			int half = len / 2 / 3 * 3; // 3 bytes result in 4 characters
+			invokeAll(new EncodeTask(src, srcPos, half, dst, dstPos),
+					new EncodeTask(src, srcPos + half, len - half, dst, dstPos + half / 3 * 4));
+		}
+	}
+
+	/**
+	 * Decodes a range of characters. Ranges above the segment size are split in two halves, the left
+	 * half is always a multiple of 4 characters, so only the last segment may hold the padding.
+	 * A padding at the end of any other segment is rejected, otherwise the following segment
+	 * would be decoded behind a gap.
+	 */
+	private static class DecodeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] src;
+		private final int srcPos;
+		private final int len;
+		private final byte[] dst;
+		private final int dstPos;
+		private final boolean isLast; // true if the range holds the end of the data
+
+		DecodeTask(byte[] src, int srcPos, int len, byte[] dst, int dstPos, boolean isLast) {
+			this.src = src;
+			this.srcPos = srcPos;
+			this.len = len;
+			this.dst = dst;
+			this.dstPos = dstPos;
+			this.isLast = isLast;
+		}
+
+		@Override
+		protected void compute() {
+			if (len <= SEGMENT_SIZE / 3 * 4) {
+				int written = MyBase64Simd.decode(src, srcPos, len, dst, dstPos);
+				if (!isLast && written < len / 4 * 3) { // the decoder has taken '=' at the end of the segment as padding
+					throw new MyBase64FormatException("Illegal Base64 character " + (int)'=', srcPos + len - (len / 4 * 3 - written));
+				}
+				return;
+			}
+			int half = len / 2 / 4 * 4; // 4 characters result in 3 bytes
+			invokeAll(new DecodeTask(src, srcPos, half, dst, dstPos, false),
+					new DecodeTask(src, srcPos + half, len - half, dst, dstPos + half / 4 * 3, isLast));
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package bs7base64;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Performance test for a pipelined base 64 encoding and decoding of a given file.
+ * A reader thread, a codec thread and a writer thread are connected by bounded queues, so
+ * reading, converting and writing run at the same time. The chunks are taken from a fixed
+ * pool of buffers and returned after use, so the memory stays bounded and no buffers are
+ * allocated while the file is converted.
+ */
+public class MyBase64PipelineFile {
+	/**
+	 * Number of bytes read per chunk (multiple of 3 and 4, so every chunk but the last holds
+	 * complete blocks for encoding and decoding).
+	 */
+	public static final int CHUNK_SIZE = 3 * 1024 * 1024;
+	/**
+	 * Number of buffers per pool. The reader can run POOL_SIZE chunks ahead of the codec.
+	 */
+	public static final int POOL_SIZE = 4;
+
+	private static final Chunk END = new Chunk(0); // poison pill, marks the end of the data
+
+	public static void main(String[] args) throws IOException {
+		String fileName = "BigDB.zip";
+		String path = "C:\\tmp\\";
+		String fileOrigPath = path + fileName;
+		String fileCodePath = path + fileName + ".txt";
+		String fileDecodePath = path + "dec_" + fileName;
+
+		long ts = System.currentTimeMillis();
+
+		encodeFile(fileOrigPath, fileCodePath);
+		decodeFile(fileCodePath, fileDecodePath);
+
+		System.out.println(System.currentTimeMillis() - ts);
+	}
+
+	/**
+	 * Encodes the binary file to a Base64 text file. Existing files will be overwritten.
+	 * @param filePathIn Path of the binary file.
+	 * @param filePathOut Path of the generated text file.
+	 * @throws IOException In case of any read or write error.
+	 */
+	public static void encodeFile(String filePathIn, String filePathOut) throws IOException {
+		convertFile(filePathIn, filePathOut, CHUNK_SIZE / 3 * 4, MyBase64Simd::encode);
+	}
+
+	/**
+	 * Decodes the Base64 text file to a binary file. Existing files will be overwritten.
+	 * @param filePathIn Path of the Base64 text file.
+	 * @param filePathOut Path of the generated binary file.
+	 * @throws IOException In case of any read or write error or invalid Base64 data.
+	 */
+	public static void decodeFile(String filePathIn, String filePathOut) throws IOException {
+		convertFile(filePathIn, filePathOut, CHUNK_SIZE / 4 * 3, MyBase64Simd::decode);
+	}
+
+	/**
+	 * Conversion of a chunk, same signature as the encode and decode methods of the engines.
+	 */
+	private interface Converter {
+		int convert(byte[] src, int srcPos, int len, byte[] dst, int dstPos);
+	}
+
+	/**
+	 * Buffer that is passed through the pipeline.
+	 */
+	private static final class Chunk {
+		final byte[] data;
+		int len = 0;
+		long pos = 0; // position of the first byte in the input file (for error messages)
+
+		Chunk(int size) {
+			this.data = new byte[size];
+		}
+	}
+
+	private static void convertFile(String filePathIn, String filePathOut, int outSize, Converter converter) throws IOException {
+		BlockingQueue<Chunk> freeIn = buildPool(CHUNK_SIZE);
+		BlockingQueue<Chunk> freeOut = buildPool(outSize);
+		BlockingQueue<Chunk> read = new ArrayBlockingQueue<>(POOL_SIZE + 1); // + 1 for the poison pill
+		BlockingQueue<Chunk> converted = new ArrayBlockingQueue<>(POOL_SIZE + 1);
+
+		// The files are handled with automatic resource management.
+		try (InputStream is = new FileInputStream(filePathIn);
+				OutputStream os = new FileOutputStream(filePathOut)) {
+			ExecutorService executor = Executors.newFixedThreadPool(3);
+			try {
+				CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+				stages.submit(() -> readStage(is, freeIn, read));
+				stages.submit(() -> convertStage(converter, read, freeIn, freeOut, converted));
+				stages.submit(() -> writeStage(os, converted, freeOut));
+				for (int i = 0; i < 3; i++) {
+					stages.take().get(); // the first failing stage ends the conversion
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Conversion interrupted");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException)e.getCause();
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException)e.getCause();
+				}
+				throw new IOException(e.getCause());
+			} finally {
+				executor.shutdownNow(); // stops the stages which still wait for a chunk
+			}
+		}
+	}
+
+	private static BlockingQueue<Chunk> buildPool(int size) {
+		BlockingQueue<Chunk> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+		for (int i = 0; i < POOL_SIZE; i++) {
+			pool.add(new Chunk(size));
+		}
+		return pool;
+	}
+
+	private static Void readStage(InputStream is, BlockingQueue<Chunk> free, BlockingQueue<Chunk> read)
+			throws IOException, InterruptedException {
+		long pos = 0;
+		while (true) {
+			Chunk chunk = free.take();
+			chunk.len = is.readNBytes(chunk.data, 0, chunk.data.length); // only the last chunk is incomplete
+			chunk.pos = pos;
+			pos += chunk.len;
+			if (chunk.len == 0) {
+				break;
+			}
+			read.put(chunk);
+			if (chunk.len < chunk.data.length) {
+				break;
+			}
+		}
+		read.put(END);
+		return null;
+	}
+
+	private static Void convertStage(Converter converter, BlockingQueue<Chunk> read, BlockingQueue<Chunk> freeIn,
+			BlockingQueue<Chunk> freeOut, BlockingQueue<Chunk> converted) throws IOException, InterruptedException {
+		Chunk in = read.take();
+		while (in != END) {
+			Chunk out = freeOut.take();
+			try {
+				out.len = converter.convert(in.data, 0, in.len, out.data, 0);
+			} catch (MyBase64FormatException e) {
+				throw new IOException(e.withOffset(in.pos).getMessage(), e);
+			}
+			long pos = in.pos;
+			int len = in.len;
+			freeIn.put(in);
+			in = read.take(); // the chunk is only passed on when it is known whether it is the last one
+			if (in != END && out.len < out.data.length) { // the decoder has taken '=' at the end of an interior chunk as padding
+				MyBase64FormatException e = new MyBase64FormatException("Illegal Base64 character " + (int)'=', len - (out.data.length - out.len));
+				throw new IOException(e.withOffset(pos).getMessage(), e);
+			}
+			converted.put(out);
+		}
+		converted.put(END);
+		return null;
+	}
+
+	private static Void writeStage(OutputStream os, BlockingQueue<Chunk> converted, BlockingQueue<Chunk> free)
+			throws IOException, InterruptedException {
+		Chunk chunk;
+		while ((chunk = converted.take()) != END) {
+			os.write(chunk.data, 0, chunk.len);
+			free.put(chunk);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,166 @@
+package bs7base64;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base64 encoder which reuses its buffers, so encoding allocates nothing once the buffers
+ * have reached the size of the largest message. The encode methods return the number of
+ * characters, the characters are read from buffer() or copied with copyTo or writeTo. A String
+ * is only created if asString() is called.
+ * An encoder is not thread-safe: each thread uses its own instance, e.g. from forThread().
+ * The result of an encode call is valid until the next call on the same encoder.
+ */
+public final class MyBase64ReusableEncoder {
+	private static final ThreadLocal<MyBase64ReusableEncoder> PER_THREAD = ThreadLocal.withInitial(MyBase64ReusableEncoder::new);
+
+	private final MyBase64Codec codec;
+	private byte[] input = new byte[0]; // UTF-16 bytes of encoded texts
+	private byte[] output = new byte[0]; // Base64 characters of the last call
+	private int length = 0; // number of characters in output
+
+	/**
+	 * Creates an encoder for the standard alphabet.
+	 */
+	public MyBase64ReusableEncoder() {
+		this(MyBase64Codec.STANDARD);
+	}
+
+	/**
+	 * Creates an encoder for the alphabet of the given codec.
+	 * @param codec Codec which defines the alphabet and the padding.
+	 */
+	public MyBase64ReusableEncoder(MyBase64Codec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * Returns the encoder of the current thread for the standard alphabet.
+	 * @return Encoder which may only be used by the current thread.
+	 */
+	public static MyBase64ReusableEncoder forThread() {
+		return PER_THREAD.get();
+	}
+
+	/**
+	 * Encodes len bytes of src into the internal buffer.
+	 * @param src Data to convert.
+	 * @param off Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @return Number of characters, which can be read from buffer().
+	 */
+	public int encode(byte[] src, int off, int len) {
+		output = ensureSize(output, codec.encodedLength(len));
+		length = codec.encode(src, off, len, output, 0);
+		return length;
+	}
+
+	/**
+	 * Encodes the given data into the internal buffer.
+	 * @param data Data to convert.
+	 * @return Number of characters, which can be read from buffer().
+	 */
+	public int encode(byte[] data) {
+		return encode(data, 0, data.length);
+	}
+
+	/**
+	 * Encodes the 16 bit characters of the text (UTF-16, big endian) into the internal buffer,
+	 * like MyBase64bits.textToBase64(text, 16).
+	 * @param text Text to convert.
+	 * @return Number of characters, which can be read from buffer().
+	 */
+	public int encode(CharSequence text) {
+		int len = Math.multiplyExact(text.length(), 2);
+		input = ensureSize(input, len);
+		for (int i = 0, p = 0; i < text.length(); i++, p += 2) {
+			char c = text.charAt(i);
+			input[p] = (byte)(c >>> 8);
+			input[p + 1] = (byte)c;
+		}
+		return encode(input, 0, len);
+	}
+
+	/**
+	 * Encodes len bytes of src into the array of the caller, no internal buffer is used.
+	 * @param src Data to convert.
+	 * @param off Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target array, must have space for encodedLength(len) characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters written.
+	 */
+	public int encode(byte[] src, int off, int len, byte[] dst, int dstPos) {
+		return codec.encode(src, off, len, dst, dstPos);
+	}
+
+	/**
+	 * @param len Number of bytes.
+	 * @return Number of characters of len encoded bytes.
+	 */
+	public int encodedLength(int len) {
+		return codec.encodedLength(len);
+	}
+
+	/**
+	 * Returns the internal buffer. Only the first length() bytes belong to the last result,
+	 * the buffer is overwritten by the next encode call.
+	 * @return Buffer with the Base64 characters as ASCII bytes.
+	 */
+	public byte[] buffer() {
+		return output;
+	}
+
+	/**
+	 * @return Number of characters of the last result.
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Copies the characters of the last result into the array of the caller.
+	 * @param dst Target array, must have space for length() characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters copied.
+	 */
+	public int copyTo(byte[] dst, int dstPos) {
+		System.arraycopy(output, 0, dst, dstPos, length);
+		return length;
+	}
+
+	/**
+	 * Writes the characters of the last result to the stream.
+	 * @param os Target stream.
+	 * @throws IOException In case of any errors while writing.
+	 */
+	public void writeTo(OutputStream os) throws IOException {
+		os.write(output, 0, length);
+	}
+
+	/**
+	 * Creates a String of the last result. This is the only method that allocates memory
+	 * for the result.
+	 * @return Base64 String.
+	 */
+	public String asString() {
+		return new String(output, 0, length, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Releases the internal buffers, e.g. after an unusually large message.
+	 */
+	public void release() {
+		input = new byte[0];
+		output = new byte[0];
+		length = 0;
+	}
+
+	private static byte[] ensureSize(byte[] buffer, int size) {
+		if (buffer.length >= size) {
+			return buffer;
+		}
+		return new byte[Math.max(size, (int)Math.min(Integer.MAX_VALUE - 8, buffer.length * 3L / 2))]; // grow by 50 %, so a slowly growing size does not allocate each time
+	}
+}
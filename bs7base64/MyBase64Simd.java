@@ -0,0 +1,103 @@
+package bs7base64;
+
+/**
+ * Base64 engine that uses the SIMD instructions of the CPU (SSE, AVX2, AVX-512) through the
+ * Vector API. The Vector API is an incubator module, which must be enabled with
+ * --add-modules jdk.incubator.vector. Without the module, or on hardware with too small
+ * vectors, the engine falls back to the scalar block encoder and the SWAR decoder.
+ */
+public class MyBase64Simd {
+	private static final boolean AVAILABLE = checkAvailable();
+
+	/**
+	 * @return true if the Vector API is enabled and used by this engine.
+	 */
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	/**
+	 * Converts the given byte data to Base64 and returns the ASCII characters as byte array.
+	 * @param data Data to convert.
+	 * @return Base64 encoded ASCII characters.
+	 */
+	public static byte[] encode(byte[] data) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] out = new byte[MyBase64Tools.encodedLength(data.length)];
+			encode(data, 0, data.length, out, 0);
+			outSize = out.length;
+			return out;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.SIMD, true, data.length, outSize);
+		}
+	}
+
+	/**
+	 * Encodes len bytes of src to Base64 and writes the ASCII characters to dst.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target array, must have space for (len + 2) / 3 * 4 characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters written.
+	 */
+	public static int encode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		if (AVAILABLE) {
+			return MyBase64Vector.encode(src, srcPos, len, dst, dstPos);
+		}
+		return MyBase64bitsFile.encodeBlock(src, srcPos, len, dst, dstPos, MyBase64Tools.ENCODING_PAIRS);
+	}
+
+	/**
+	 * Decodes the Base64 characters and returns the data in an exactly sized array.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static byte[] decode(byte[] src) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] dst = new byte[MyBase64Tools.decodedLength(src, 0, src.length)];
+			decode(src, 0, src.length, dst, 0);
+			outSize = dst.length;
+			return dst;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.SIMD, false, src.length, outSize);
+		}
+	}
+
+	/**
+	 * Decodes len Base64 characters of src and writes the bytes to dst.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target array, must have space for all decoded bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		if (AVAILABLE) {
+			return MyBase64Vector.decode(src, srcPos, len, dst, dstPos);
+		}
+		return MyBase64Swar.decode(src, srcPos, len, dst, dstPos);
+	}
+
+	/**
+	 * Checks if the incubator module is part of the boot layer. MyBase64Vector is only loaded
+	 * if the module is present, so the class can be used without it.
+	 */
+	private static boolean checkAvailable() {
+		if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			return false;
+		}
+		try {
+			return MyBase64Vector.isSupported();
+		} catch (LinkageError e) { // the module is present, but the Vector API could not be initialized
+			return false;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package bs7base64;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Performance test for a base 64 encoding and decoding of a given file.
+ * The class uses the streaming encoder and decoder, so the file is never held in memory completely.
+ */
+public class MyBase64StreamFile {
+	public static void main(String[] args) throws IOException {
+		String fileName = "BigDB.zip";
+		String path = "C:\\tmp\\";
+		String fileOrigPath = path + fileName;
+		String fileCodePath = path + fileName + ".txt";
+		String fileDecodePath = path + "dec_" + fileName;
+
+		long ts = System.currentTimeMillis();
+
+		encodeFile(fileOrigPath, fileCodePath);
+		decodeFile(fileCodePath, fileDecodePath);
+
+		System.out.println(System.currentTimeMillis() - ts);
+	}
+
+	/**
+	 * Encodes the binary file to a Base64 text file. Existing files will be overwritten.
+	 * @param filePathIn Path of the binary file.
+	 * @param filePathOut Path of the generated text file.
+	 * @throws IOException In case of any read or write error.
+	 */
+	public static void encodeFile(String filePathIn, String filePathOut) throws IOException {
+		// The files are handled with automatic resource management.
+		try (InputStream is = new FileInputStream(filePathIn);
+				OutputStream os = new MyBase64EncoderStream(new BufferedOutputStream(new FileOutputStream(filePathOut)))) {
+			copy(is, os);
+		}
+	}
+
+	/**
+	 * Decodes the Base64 text file to a binary file. Existing files will be overwritten.
+	 * @param filePathIn Path of the Base64 text file.
+	 * @param filePathOut Path of the generated binary file.
+	 * @throws IOException In case of any read or write error or invalid Base64 data.
+	 */
+	public static void decodeFile(String filePathIn, String filePathOut) throws IOException {
+		// The files are handled with automatic resource management.
+		try (InputStream is = new MyBase64DecoderStream(new BufferedInputStream(new FileInputStream(filePathIn)));
+				OutputStream os = new FileOutputStream(filePathOut)) {
+			copy(is, os);
+		}
+	}
+
+	private static void copy(InputStream is, OutputStream os) throws IOException {
+		byte[] buffer = new byte[3 * 8192]; // multiple of 3, so the encoder does not need to carry bytes
+		int n;
+		while ((n = is.read(buffer)) != -1) {
+			os.write(buffer, 0, n);
+		}
+	}
+}
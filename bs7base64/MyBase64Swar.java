@@ -0,0 +1,109 @@
+package bs7base64;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Base64 decoder that works on 64 bit words ("SIMD within a register"). Eight characters
+ * are loaded into a long, translated to their Base64 values and validated in all eight
+ * byte lanes at once, then packed to 6 output bytes. Invalid characters are reported with
+ * their position.
+ */
+public class MyBase64Swar {
+	private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+	private static final long ONES = 0x0101010101010101L; // 1 in every byte lane, multiplied with a byte it fills all lanes
+	private static final long HIGH = 0x8080808080808080L; // the highest bit of every byte lane
+	private static final long LOW7 = 0x7f7f7f7f7f7f7f7fL; // the lower 7 bits of every byte lane
+
+	/**
+	 * Decodes the Base64 characters and returns the data in an exactly sized array.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static byte[] decode(byte[] src) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] dst = new byte[MyBase64Tools.decodedLength(src, 0, src.length)];
+			decode(src, 0, src.length, dst, 0);
+			outSize = dst.length;
+			return dst;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.SWAR, false, src.length, outSize);
+		}
+	}
+
+	/**
+	 * Decodes len Base64 characters of src and writes the bytes to dst. The complete blocks
+	 * are handled 8 characters at a time, the last block (including the padding) is handled
+	 * by MyBase64bitsFile.decodeBlock.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target array, must have space for all decoded bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int wordEnd = len > 0 ? srcPos + (len - 1) / 4 * 4 : srcPos; // the last block may hold padding, it is decoded separately
+		// 8 bytes are stored, the last 2 are overwritten by the next step. At least one more block
+		// is left for the next step, so the store never exceeds the output of this call.
+		while (sp + 12 <= wordEnd && dp + 8 <= dst.length) {
+			long w = (long)LONG_BE.get(src, sp);
+			long x = w & LOW7; // the range checks need 7 bit values, otherwise they borrow from the neighbour lane
+
+			long upper = inRange(x, 'A', 'Z');
+			long lower = inRange(x, 'a', 'z');
+			long digit = inRange(x, '0', '9');
+			long plus = inRange(x, '+', '+');
+			long slash = inRange(x, '/', '/');
+
+			long valid = (upper | lower | digit | plus | slash) & ~w; // characters above 127 are never valid
+			if (valid != HIGH) {
+				int lane = Long.numberOfLeadingZeros(~valid & HIGH) >>> 3; // lane 0 is the first character
+				throw new MyBase64FormatException("Illegal Base64 character " + (src[sp + lane] & 0xff), sp + lane);
+			}
+
+			// every lane gets the distance between its character and its Base64 value
+			long delta = (fill(upper) & ONES * 0xbf)  // 'A' - 'Z': -65
+					| (fill(lower) & ONES * 0xb9)     // 'a' - 'z': -71
+					| (fill(digit) & ONES * 0x04)     // '0' - '9': +4
+					| (fill(plus) & ONES * 0x13)      // '+': +19
+					| (fill(slash) & ONES * 0x10);    // '/': +16
+			long values = ((x & LOW7) + (delta & LOW7)) ^ (delta & HIGH); // byte wise addition without carry to the neighbour lane
+
+			// pack the 6 bit values: first pairs to 12 bits, then pairs of 12 bits to 24 bits
+			long pairs = (values & 0x3f003f003f003f00L) >>> 2 | (values & 0x003f003f003f003fL);
+			long blocks = (pairs & 0x0fff00000fff0000L) >>> 4 | (pairs & 0x00000fff00000fffL);
+			LONG_BE.set(dst, dp, (blocks & 0x00ffffff00000000L) << 8 | (blocks & 0x0000000000ffffffL) << 16);
+
+			sp += 8;
+			dp += 6;
+		}
+		dp += MyBase64bitsFile.decodeBlock(src, sp, srcPos + len - sp, dst, dp, MyBase64Tools.DECODING_PAIRS);
+		return dp - dstPos;
+	}
+
+	/**
+	 * Sets the highest bit of every byte lane of x which holds a value between lo and hi.
+	 * @param x Word with 7 bit values in all lanes.
+	 */
+	private static long inRange(long x, int lo, int hi) {
+		long ge = (x | HIGH) - ONES * lo; // the highest bit remains set, if x >= lo
+		long le = ONES * (hi | 0x80) - x; // the highest bit remains set, if x <= hi
+		return ge & le & HIGH;
+	}
+
+	/**
+	 * Expands the highest bit of every byte lane to all 8 bits of the lane.
+	 */
+	private static long fill(long highBits) {
+		return (highBits >>> 7) * 0xff;
+	}
+}
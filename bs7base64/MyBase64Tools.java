@@ -6,6 +6,10 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.Random;
 
@@ -13,6 +17,25 @@ import java.util.Random;
  * Class for static tools supporting the Base64 encoding task.
  */
 public class MyBase64Tools {
+	/**
+	 * Precomputed encoding table for pairs of Base64 characters (see buildEncodingPairs).
+	 * The table is shared by the block codecs and must not be modified.
+	 */
+	public static final char[] ENCODING_PAIRS = buildEncodingPairs(buildEncoding());
+
+	/**
+	 * Position of the single character values in the decoding table for pairs (see buildDecodingPairs).
+	 */
+	public static final int SINGLE_OFFSET = 128 * 128;
+
+	/**
+	 * Precomputed decoding table for pairs of Base64 characters (see buildDecodingPairs).
+	 * The table is shared by the block codecs and must not be modified.
+	 */
+	public static final short[] DECODING_PAIRS = buildDecodingPairs(buildEncoding());
+
+	private static final int ASCII_BUFFER_SIZE = 64 * 1024; // buffer of the ASCII writer
+
 	/**
 	 * Writes the fileContent to a text file of the given path. Existing files will be overwritten.
 	 * @param filePath File path of the generated text file.
@@ -25,52 +48,103 @@ public class MyBase64Tools {
 			fwr.write(fileContent);
 		}
 	}	
+
+	/**
+	 * Writes ASCII text like Base64 to a file of the given path. Existing files will be overwritten.
+	 * Each character is written as one byte, so there is no charset encoder and no copy of the whole text.
+	 * @param filePath File path of the generated text file.
+	 * @param fileContent ASCII characters.
+	 * @throws IOException In case of any errors while writing.
+	 * @throws IllegalArgumentException If the content contains a character above 127.
+	 */
+	public static void writeToAsciiFile(String filePath, CharSequence fileContent) throws IOException {
+		// The file is handled with automatic resource management.
+		try (OutputStream os = new FileOutputStream(filePath)) {
+			writeAscii(os, fileContent);
+		}
+	}
+
+	/**
+	 * Writes ASCII text to the stream, each character as one byte. The characters are collected
+	 * in a small buffer, so the stream does not need to be buffered.
+	 * @param os Target stream, it is not closed.
+	 * @param content ASCII characters.
+	 * @throws IOException In case of any errors while writing.
+	 * @throws IllegalArgumentException If the content contains a character above 127.
+	 */
+	public static void writeAscii(OutputStream os, CharSequence content) throws IOException {
+		byte[] buffer = new byte[ASCII_BUFFER_SIZE];
+		int len = content.length();
+		for (int pos = 0; pos < len; pos += buffer.length) {
+			int n = Math.min(buffer.length, len - pos);
+			int check = 0; // collects all character bits, so the loop has no branch per character
+			for (int i = 0; i < n; i++) {
+				char c = content.charAt(pos + i);
+				check |= c;
+				buffer[i] = (byte)c;
+			}
+			if (check > 127) {
+				throw new IllegalArgumentException("Non ASCII character in the block at position " + pos);
+			}
+			os.write(buffer, 0, n);
+		}
+	}
+
+	/**
+	 * Reads an ASCII text file like Base64 and returns it as String. The bytes are taken 1:1 as
+	 * characters, so there is no Reader and no charset decoder.
+	 * @param filePath Path of the file to be read.
+	 * @return Content of the file.
+	 * @throws FileNotFoundException In case of the file was not found.
+	 * @throws IOException In case of any other read error.
+	 */
+	public static String readFileToAsciiString(String filePath) throws FileNotFoundException, IOException {
+		// ISO_8859_1 maps each byte to the character with the same number, which is a plain copy
+		return new String(readFileToBinBytes(filePath), StandardCharsets.ISO_8859_1);
+	}
 	
 	/**
 	 * Reads the binary content of the file with the given path, converts it to 
-	 * an 8 bit String pattern and returns it. The logic is not performance optimized.
+	 * an 8 bit String pattern and returns it. The bits are collected in a MyBitBuffer, only
+	 * the result holds a character per bit.
 	 * @param filePath Path of the file to be read.
 	 * @return Binary data in String format of the file.
 	 * @throws FileNotFoundException In case of the file was not found.
 	 * @throws IOException In case of any other read error.
 	 */
 	public static String readFileToBinString(String filePath) throws FileNotFoundException, IOException {
-		String sOut = "";
-		try (InputStream is = new FileInputStream(filePath)) {
-			byte[] bytes = new byte[is.available()];
-			is.read(bytes);
-			for (byte b : bytes) {
-				String s = fillWithZeroLeft(Integer.toBinaryString(b), 8);
-				sOut += s.substring(s.length() - 8);
-			}
-		}
-		return sOut;
+		return readFileToBitBuffer(filePath).toBitString();
 	}	
 	
 
 	/**
-	 * Reads the binary content of the file with the given path, converts it to 
-	 * an 8 bit String pattern and returns it. The logic uses a StringBuilder for better performance.
+	 * Same as readFileToBinString. The method was the StringBuilder variant of the String
+	 * concatenation in readFileToBinString, since both work on a MyBitBuffer now it is only
+	 * kept for compatibility with the existing callers.
 	 * @param filePath Path of the file to be read.
 	 * @return Binary data in String format of the file.
 	 * @throws FileNotFoundException In case of the file was not found.
 	 * @throws IOException In case of any other read error.
 	 */
 	public static String readFileToBinStringBuilder(String filePath) throws FileNotFoundException, IOException {
-		StringBuilder sOut = new StringBuilder();
-		try (InputStream is = new FileInputStream(filePath)) {
-			byte[] bytes = new byte[is.available()];
-			is.read(bytes);
-			for (byte b : bytes) {
-				String s = fillWithZeroLeft(Integer.toBinaryString(b), 8);
-				sOut.append(s.substring(s.length() - 8));
-			}
-		}
-		return sOut.toString();
+		return readFileToBinString(filePath);
 	}	
 	
 	/**
-	 * Reads the binary content of the file with the given path and returns it.
+	 * Reads the binary content of the file with the given path into a bit buffer, which uses
+	 * 1 bit of memory per bit instead of a character of the String pattern.
+	 * @param filePath Path of the file to be read.
+	 * @return Binary data of the file, 8 bits per byte.
+	 * @throws FileNotFoundException In case of the file was not found.
+	 * @throws IOException In case of any other read error.
+	 */
+	public static MyBitBuffer readFileToBitBuffer(String filePath) throws FileNotFoundException, IOException {
+		return MyBitBuffer.fromBytes(readFileToBinBytes(filePath));
+	}
+	
+	/**
+	 * Reads the binary content of the file with the given path and returns it. For large files
+	 * MyBase64MappedFile converts without copying the file to the heap.
 	 * @param filePath Path of the file to be read.
 	 * @return Raw binary data of the file.
 	 * @throws FileNotFoundException In case of the file was not found.
@@ -80,8 +154,7 @@ public class MyBase64Tools {
 		byte[] bytes = null;
 		// The file is handled with automatic resource management.
 		try (InputStream is = new FileInputStream(filePath)) {
-			bytes = new byte[is.available()];
-			is.read(bytes);
+			bytes = is.readAllBytes(); // a single read() is not guaranteed to return the whole file
 		}
 		return bytes;
 	}
@@ -92,16 +165,21 @@ public class MyBase64Tools {
 	 * @param filePath File path of the generated file.
 	 * @param Byte data as String to be written.
 	 * @throws IOException In case of any errors while writing.
+	 * @throws IllegalArgumentException If the String contains other characters than '0' and '1'.
 	 */
 	public static void writeToBinFile(String filePath, String fileBinContent) throws IOException {
-		// The file is handled with automatic resource management.
-		try (FileOutputStream fos = new FileOutputStream(filePath)) {
-			byte[] data = new byte[fileBinContent.length() / 8];
-			for (int i = 0; i < data.length; i++) {
-				data[i] = (byte)(Integer.parseInt(fileBinContent.substring(i * 8, i * 8 + 8), 2));
-			}
-			fos.write(data);
-		}
+		writeToBinFile(filePath, MyBitBuffer.fromBitString(fileBinContent)); // packed without substring and parseInt
+	}
+	
+	/**
+	 * Writes the bits of the buffer (in 8 bit chunks) to a binary file of the given path.
+	 * Bits after the last complete byte are ignored. Existing files will be overwritten.
+	 * @param filePath File path of the generated file.
+	 * @param bits Byte data as bit buffer to be written.
+	 * @throws IOException In case of any errors while writing.
+	 */
+	public static void writeToBinFile(String filePath, MyBitBuffer bits) throws IOException {
+		writeToBinFile(filePath, bits.toBytes());
 	}
 	
 	/**
@@ -133,6 +211,20 @@ public class MyBase64Tools {
 			fos.write(data);
 		}
 	}
+
+	/**
+	 * Writes the first len data bytes to a binary file of the given path. Existing files will be overwritten.
+	 * @param filePath File path of the generated file.
+	 * @param data Raw data to be written.
+	 * @param len Number of bytes to be written.
+	 * @throws IOException In case of any errors while writing.
+	 */
+	public static void writeToBinFile(String filePath, byte[] data, int len) throws IOException {
+		// The file is handled with automatic resource management.
+		try (FileOutputStream fos = new FileOutputStream(filePath)) {
+			fos.write(data, 0, len);
+		}
+	}
 	
 	/**
 	 * Builds a random string with the character numbers 0 to 65535 of the given size.
@@ -266,6 +358,94 @@ public class MyBase64Tools {
 		return decoding;
 	}
 	
+	/**
+	 * Creates an encoding table for 12 bit values. Each of the 4096 entries holds the two
+	 * Base64 characters of the value: the first character in the upper byte, the second
+	 * character in the lower byte. With this table a block of 24 bits needs only two lookups.
+	 * @param encoding Base64 encoding table with 64 characters (see buildEncoding).
+	 * @return encoding table for pairs of characters
+	 */
+	public static char[] buildEncodingPairs(char[] encoding) {
+		char[] pairs = new char[4096];
+		for (int i = 0; i < pairs.length; i++) {
+			pairs[i] = (char)(encoding[i >>> 6] << 8 | encoding[i & 0b111111]);
+		}
+		return pairs;
+	}
+
+	/**
+	 * Creates a decoding table for pairs of Base64 characters. The index is built from the two
+	 * 7 bit character numbers (first character << 7 | second character), the value is the 12 bit
+	 * value of both characters. Invalid combinations hold -1. The values of single characters
+	 * follow behind the pairs: the value of the character c is at index SINGLE_OFFSET + c.
+	 * @param encoding Base64 encoding table with 64 characters (see buildEncoding).
+	 * @return decoding table for pairs of characters
+	 */
+	public static short[] buildDecodingPairs(char[] encoding) {
+		short[] pairs = new short[SINGLE_OFFSET + 128];
+		Arrays.fill(pairs, (short)-1);
+		for (int i = 0; i < 64; i++) {
+			for (int j = 0; j < 64; j++) {
+				pairs[encoding[i] << 7 | encoding[j]] = (short)(i << 6 | j);
+			}
+			pairs[SINGLE_OFFSET + encoding[i]] = (short)i;
+		}
+		return pairs;
+	}
+
+	/**
+	 * Calculates the number of Base64 characters of len bytes including the padding.
+	 * @param len Number of bytes.
+	 * @return Number of characters.
+	 * @throws ArithmeticException If the result does not fit into an array.
+	 */
+	public static int encodedLength(int len) {
+		return Math.toIntExact((len + 2L) / 3 * 4); // every started block of 3 bytes results in 4 characters
+	}
+
+	/**
+	 * Calculates the number of bytes that len Base64 characters decode to. The padding characters
+	 * carry no data, an unpadded last block of 2 or 3 characters carries 1 or 2 bytes.
+	 * @param base64 Base64 characters as ASCII bytes.
+	 * @param pos Start position of the characters.
+	 * @param len Number of characters.
+	 * @return Number of decoded bytes.
+	 */
+	public static int decodedLength(byte[] base64, int pos, int len) {
+		int end = pos + len;
+		return decodedLength(len, len > 0 && base64[end - 1] == '=', len > 1 && base64[end - 2] == '=');
+	}
+
+	/**
+	 * Calculates the number of bytes that the Base64 characters of buffer decode to.
+	 * @param base64 Buffer with Base64 characters as ASCII bytes.
+	 * @param pos Absolute start position of the characters.
+	 * @param len Number of characters.
+	 * @return Number of decoded bytes.
+	 */
+	public static int decodedLength(ByteBuffer base64, int pos, int len) {
+		int end = pos + len;
+		return decodedLength(len, len > 0 && base64.get(end - 1) == '=', len > 1 && base64.get(end - 2) == '=');
+	}
+
+	/**
+	 * Calculates the number of bytes that the Base64 String decodes to.
+	 * @param base64 Base64 characters.
+	 * @return Number of decoded bytes.
+	 */
+	public static int decodedLength(CharSequence base64) {
+		int len = base64.length();
+		return decodedLength(len, len > 0 && base64.charAt(len - 1) == '=', len > 1 && base64.charAt(len - 2) == '=');
+	}
+
+	private static int decodedLength(int len, boolean lastPadding, boolean secondLastPadding) {
+		int chars = len;
+		if (len % 4 == 0 && lastPadding) { // the padding can only be part of a complete last block
+			chars -= secondLastPadding ? 2 : 1;
+		}
+		return chars / 4 * 3 + chars % 4 * 3 / 4;
+	}
+
 	/**
 	 * Fills the String sIn with leading '0' until it reaches the given length
 	 * @param sIn String to fill
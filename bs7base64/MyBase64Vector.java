@@ -0,0 +1,141 @@
+package bs7base64;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Base64 encoder and decoder based on the Vector API (jdk.incubator.vector). Depending on the
+ * hardware a vector holds 16, 32 or 64 characters which are translated with a single shuffle.
+ * The class needs the incubator module (--add-modules jdk.incubator.vector), it should only be
+ * used through MyBase64Simd, which falls back to the scalar codecs if the module is missing.
+ */
+class MyBase64Vector {
+	private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+	private static final int LENGTH = BYTES.length(); // characters per vector
+
+	/**
+	 * Distributes the 3 byte blocks of the input to 4 byte lanes (little endian): lane k of
+	 * block g gets the bytes 3g+2, 3g+1, 3g, 3g, so every int holds the 24 bits of its block.
+	 */
+	private static final VectorShuffle<Byte> ENCODE_SHUFFLE = VectorShuffle.fromOp(BYTES, j -> 3 * (j / 4) + new int[] { 2, 1, 0, 0 }[j % 4]);
+
+	/**
+	 * Collects the first 3 bytes of every 4 byte lane, the last quarter of the vector is unused.
+	 */
+	private static final VectorShuffle<Byte> DECODE_SHUFFLE = VectorShuffle.fromOp(BYTES, j -> j < LENGTH / 4 * 3 ? 4 * (j / 3) + j % 3 : 0);
+
+	/**
+	 * Distance between the Base64 value and its character. The index is calculated from the
+	 * Base64 value (see encode), the 16 entries are repeated for vectors with more lanes.
+	 */
+	private static final ByteVector ENCODE_OFFSETS = ByteVector.fromArray(BYTES, buildOffsets(), 0);
+
+	/**
+	 * @return true if the vectors of this hardware are large enough for the shuffle lookup.
+	 */
+	static boolean isSupported() {
+		return LENGTH >= 16;
+	}
+
+	/**
+	 * Encodes len bytes of src to Base64 and writes the ASCII characters to dst.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target array, must have space for (len + 2) / 3 * 4 characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters written.
+	 */
+	static int encode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len;
+		// a full vector is loaded and stored, but only 3/4 of the input are used per step
+		while (sp + LENGTH <= end && dp + LENGTH <= dst.length) {
+			IntVector blocks = ByteVector.fromArray(BYTES, src, sp).rearrange(ENCODE_SHUFFLE).reinterpretAsInts();
+			// split every 24 bit block to 4 values of 6 bits, the first one in the lowest byte
+			IntVector values = blocks.lanewise(VectorOperators.LSHR, 18).and(0b111111)
+					.or(blocks.lanewise(VectorOperators.LSHR, 12).and(0b111111).lanewise(VectorOperators.LSHL, 8))
+					.or(blocks.lanewise(VectorOperators.LSHR, 6).and(0b111111).lanewise(VectorOperators.LSHL, 16))
+					.or(blocks.and(0b111111).lanewise(VectorOperators.LSHL, 24));
+			ByteVector v = values.reinterpretAsBytes();
+			// 0 - 25 -> 13, 26 - 51 -> 0, 52 - 63 -> 1 - 12
+			ByteVector index = v.sub((byte)51).max((byte)0).blend((byte)13, v.compare(VectorOperators.LT, (byte)26));
+			v.add(ENCODE_OFFSETS.rearrange(index.toShuffle())).intoArray(dst, dp);
+			sp += LENGTH / 4 * 3;
+			dp += LENGTH;
+		}
+		dp += MyBase64bitsFile.encodeBlock(src, sp, end - sp, dst, dp, MyBase64Tools.ENCODING_PAIRS);
+		return dp - dstPos;
+	}
+
+	/**
+	 * Decodes len Base64 characters of src and writes the bytes to dst. If a vector holds an
+	 * invalid character, the rest is handed to the scalar decoder, which reports its position.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target array, must have space for all decoded bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	static int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int vectorEnd = len > 0 ? srcPos + (len - 1) / 4 * 4 : srcPos; // the last block may hold padding, it is decoded separately
+		// a full vector is stored, but only 3/4 of it are valid. Enough characters are left for the next
+		// steps to overwrite the rest, so the store never exceeds the output of this call.
+		while (sp + LENGTH + LENGTH / 3 <= vectorEnd && dp + LENGTH <= dst.length) {
+			ByteVector c = ByteVector.fromArray(BYTES, src, sp);
+			VectorMask<Byte> upper = c.compare(VectorOperators.GE, (byte)'A').and(c.compare(VectorOperators.LE, (byte)'Z'));
+			VectorMask<Byte> lower = c.compare(VectorOperators.GE, (byte)'a').and(c.compare(VectorOperators.LE, (byte)'z'));
+			VectorMask<Byte> digit = c.compare(VectorOperators.GE, (byte)'0').and(c.compare(VectorOperators.LE, (byte)'9'));
+			VectorMask<Byte> plus = c.compare(VectorOperators.EQ, (byte)'+');
+			VectorMask<Byte> slash = c.compare(VectorOperators.EQ, (byte)'/');
+			if (!upper.or(lower).or(digit).or(plus).or(slash).allTrue()) {
+				break; // characters above 127 are negative and never in range
+			}
+			ByteVector values = c.add(ByteVector.zero(BYTES).blend((byte)-65, upper).blend((byte)-71, lower)
+					.blend((byte)4, digit).blend((byte)19, plus).blend((byte)16, slash));
+			// join the 4 values of 6 bits to 24 bits, the first value is in the lowest byte
+			IntVector v = values.reinterpretAsInts();
+			IntVector bits = v.and(0b111111).lanewise(VectorOperators.LSHL, 18)
+					.or(v.lanewise(VectorOperators.LSHR, 8).and(0b111111).lanewise(VectorOperators.LSHL, 12))
+					.or(v.lanewise(VectorOperators.LSHR, 16).and(0b111111).lanewise(VectorOperators.LSHL, 6))
+					.or(v.lanewise(VectorOperators.LSHR, 24).and(0b111111));
+			// reverse the 3 bytes, so the first byte is in the lowest byte again
+			IntVector ordered = bits.lanewise(VectorOperators.LSHR, 16).and(0xff)
+					.or(bits.and(0xff00))
+					.or(bits.and(0xff).lanewise(VectorOperators.LSHL, 16));
+			ordered.reinterpretAsBytes().rearrange(DECODE_SHUFFLE).intoArray(dst, dp);
+			sp += LENGTH;
+			dp += LENGTH / 4 * 3;
+		}
+		dp += MyBase64Swar.decode(src, sp, srcPos + len - sp, dst, dp);
+		return dp - dstPos;
+	}
+
+	private static byte[] buildOffsets() {
+		byte[] offsets = new byte[LENGTH];
+		for (int i = 0; i < offsets.length; i++) {
+			int index = i % 16;
+			if (index == 0) {
+				offsets[i] = 'a' - 26;
+			} else if (index <= 10) {
+				offsets[i] = '0' - 52;
+			} else if (index == 11) {
+				offsets[i] = '+' - 62;
+			} else if (index == 12) {
+				offsets[i] = '/' - 63;
+			} else {
+				offsets[i] = 'A';
+			}
+		}
+		return offsets;
+	}
+}
@@ -1,5 +1,6 @@
 package bs7base64;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Random;
 
 /**
@@ -7,7 +8,8 @@ import java.util.Random;
  * 16 bit values. The program generates random Strings, encodes them to Base64 then
  * decodes them again. If the original String differs from the original, it
  * writes an error message to the console. 
- * The encoding/decoding algorithm uses raw bits of the char data.
+ * The encoding/decoding algorithm uses raw bits of the char data: 16 bit characters with
+ * a specialized loop, other sizes with the bit packer of MyBaseNCodec.
  */
 public class MyBase64bits {
 	public static void main(String[] args) {
@@ -46,47 +48,19 @@ public class MyBase64bits {
 	 * @return Base64 encoded String.
 	 */
 	public static String textToBase64(String textIn, int bitCount) {
-		char[] encoding = MyBase64Tools.buildEncoding();
-
-		StringBuilder outString = new StringBuilder();
-		char[] data = textIn.toCharArray();
-
-		int shift = 6;  // usually the bit-shift is 6. However, if a two character must be split to two 
-		                // Base64 values, the shift decreases to 2 or 4.
-		int rest = bitCount;  // how many bits of a single character are not coded yet.
-		int val = 0;  // here the Base64 value will be created on a bit level
-		int tmp = 0;  // temporary value, where 6 bits of the original character will be held (and shifted)
-		int next = 0; // if the rest of the character bits must be carried to the next Base64 value, the number of bits are held here.
-
-		int mask = 0b111111; // for cutting out a chunk of 6 bits
-		mask <<= bitCount - 6; // the last 6 bits must be extracted!
-
-		for (char c : data) {
-			rest = bitCount;
-			while (rest > 0) {
-				shift = next > 0 ? next : 6;  // if a character must be split to two Base64 values the shift is != 0
-				tmp = c & mask; // cut out 6 bits
-				tmp >>= bitCount - shift;  // move the bits to the left
-				val = shift == 6 ? tmp : (val |= tmp);  // if a rest is handled, the bits must be added to the "old" value.
-				                                        // Otherwise it is ok to take all 6 bits 1:1
-				c <<= shift; // move the bits for handling the next chunk
-				rest -= shift;  // always keep track of the bits that were not handled yet
-				if (rest < 0) { // if rest is negative, the absolute value is equal to the number of not handled bits
-					next = -1 * rest; // the next Base64 value will take the rest of the bits
-					rest = 0;  // the current Base64/character combination is done, the rest will be handled in the next Base64 value
-				} else {
-					next = 0; // reset next, because everything will be handled via the rest counter
-					outString.append(encoding[val]);
-				}
-			}
+		if (bitCount == 16) { // Java chars have 16 bits, so the specialized path can be used
+			return textToBase64Utf16(textIn);
 		}
-		if (next != 0) { // if there are still bits open
-			outString.append(encoding[val]);
-			for (int i = 0; i < next / 2; i++) { // one padding '=' for every two bits
-				outString.append("=");
-			}
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			// the bits of the characters are packed into 6 bit values by the shared radix bit packer
+			byte[] out = MyBaseNCodec.BASE64.encodeValues(textIn, bitCount);
+			outSize = out.length;
+			return new String(out, StandardCharsets.ISO_8859_1);
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.BITS, true, (long)textIn.length() * bitCount / 8, outSize);
 		}
-		return outString.toString();
 	}
 	
 	/**
@@ -94,66 +68,153 @@ public class MyBase64bits {
 	 * @param base64In Base64 encoded String.
 	 * @param bitCount Number of Bits per Character. (should be 16)
 	 * @return Clear text String
+	 * @throws MyBase64FormatException If base64In contains invalid characters.
 	 */
 	public static String base64ToText(String base64In, int bitCount) {
-		StringBuilder sOut = new StringBuilder();
-		byte[] decoding = MyBase64Tools.buildDecodingBytes();
-		int mask2 = 0b11;   // mask for the case that only the rest of two bits must be decoded
-		int mask4 = 0b1111; // mask for the case that only the rest of four bits must be decoded
-		
-		// remove the tailing padding chars. It must not be processed because the bits are handled anyways
-		for (int i = 0; i < 2; i++) {
-			if (base64In.endsWith("=")) {
-				base64In= base64In.substring(0, base64In.length() - 1);
+		if (bitCount == 16) {
+			return base64ToTextUtf16(base64In);
+		}
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			int[] val = MyBaseNCodec.BASE64.decodeValues(base64In, bitCount); // the 6 bit values are unpacked into bitCount bits
+			StringBuilder sOut = new StringBuilder(val.length);
+			for (int i : val) {
+				sOut.append((char)i);
 			}
+			outSize = (long)val.length * bitCount / 8;
+			return sOut.toString();
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.BITS, false, base64In.length(), outSize);
 		}
-		
-		char[] cCodes = base64In.toCharArray();  // for accessing the decoding array the index positions are needed
-		byte[] bCodes = new byte[cCodes.length]; // the algorithm processes bits - therefore it is better to use byte types
+	}	
 
-		int pos = 0;
-		for (char c : cCodes) {
-			bCodes[pos++] = decoding[c]; 
+	/**
+	 * Converts the given text to a Base64 String, each character is encoded with its 16 bits.
+	 * Every step packs 3 characters (48 bits) into 8 Base64 characters. The text is read with
+	 * charAt, so no copy of the text is created.
+	 * @param textIn Text to convert.
+	 * @return Base64 encoded String.
+	 */
+	public static String textToBase64Utf16(CharSequence textIn) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			char[] pairs = MyBase64Tools.ENCODING_PAIRS;
+			int len = textIn.length();
+			byte[] out = new byte[MyBase64Tools.encodedLength(2 * len)]; // 2 bytes per character
+			int pos = 0;
+			int i = 0;
+			for (int end = len / 3 * 3; i < end; i += 3) {
+				long bits = (long)textIn.charAt(i) << 32 | (long)textIn.charAt(i + 1) << 16 | textIn.charAt(i + 2);
+				pos = putPair(out, pos, pairs[(int)(bits >>> 36) & 0xfff]);
+				pos = putPair(out, pos, pairs[(int)(bits >>> 24) & 0xfff]);
+				pos = putPair(out, pos, pairs[(int)(bits >>> 12) & 0xfff]);
+				pos = putPair(out, pos, pairs[(int)bits & 0xfff]);
+			}
+			if (len - i == 1) { // 16 bits: 3 Base64 characters, the last one with 2 fill bits
+				int bits = textIn.charAt(i) << 2;
+				pos = putPair(out, pos, pairs[bits >>> 6]);
+				out[pos++] = (byte)(pairs[(bits & 0b111111) << 6] >>> 8);
+				out[pos++] = '=';
+			} else if (len - i == 2) { // 32 bits: 6 Base64 characters, the last one with 4 fill bits
+				long bits = ((long)textIn.charAt(i) << 16 | textIn.charAt(i + 1)) << 4;
+				pos = putPair(out, pos, pairs[(int)(bits >>> 24) & 0xfff]);
+				pos = putPair(out, pos, pairs[(int)(bits >>> 12) & 0xfff]);
+				pos = putPair(out, pos, pairs[(int)bits & 0xfff]);
+				out[pos++] = '=';
+				out[pos++] = '=';
+			}
+			outSize = out.length;
+			return new String(out, StandardCharsets.ISO_8859_1);
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.BITS, true, 2L * textIn.length(), outSize);
 		}
+	}
 
-		int[] val = new int[6 * bCodes.length / bitCount];  // each bCode value carries 6 bits, so 6 x bCode.length is the 
-		                                                    // number of bits, divided by bitCount is the number of target values.
-		
-		pos = 0; // position in the target array
-		int rest = bitCount;  // counts the number of bits per target value to process
-		byte tmp = 0; // here the byte is held for shifting.
-		for (byte b : bCodes) {
-			tmp = b;
-			if (rest == 2) {  // if a rest of two bits are carried from the last Base64 code
-				tmp >>= 4;    // shift 4, so only the left two bits remain.
-				val[pos] <<= 2;  // shift the "old" value by two in order to make space for the two bits
-				val[pos++] |= tmp;  // add the two bits to the "old" value and prepare to process the next target value
-				if (pos < val.length) { // if not the last position was reached, prepare the next target value
-					val[pos] |= b & mask4; // the next target will get the 4 remaining bits of the current Base64 value
-					rest = bitCount - 4;
-				}
-			} else if (rest == 4) { // same procedure, but for a remainder of 4 bits
-				tmp >>= 2;
-				val[pos] <<= 4;
-				val[pos++] |= tmp;
-				if (pos < val.length) {
-					val[pos] |= b & mask2;
-					rest = bitCount - 2;
+	/**
+	 * Converts a Base64 encoded String to a Java String, each character is decoded from 16 bits.
+	 * Every step unpacks 8 Base64 characters into 3 characters of the result, which is built
+	 * directly without an intermediate array of values.
+	 * @param base64In Base64 encoded String.
+	 * @return Clear text String
+	 * @throws MyBase64FormatException If base64In contains invalid characters.
+	 */
+	public static String base64ToTextUtf16(CharSequence base64In) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			short[] pairs = MyBase64Tools.DECODING_PAIRS;
+			int len = base64In.length();
+			// the padding characters are not decoded, they only indicate the missing bits of the last block
+			for (int i = 0; i < 2 && len > 0 && base64In.charAt(len - 1) == '='; i++) {
+				len--;
+			}
+			char[] out = new char[(int)((long)len * 6 / 16)]; // each Base64 character carries 6 bits
+			int pos = 0;
+			int i = 0;
+			for (int end = len / 8 * 8; i < end; i += 8) {
+				long bits = (long)pair(base64In, i, pairs) << 36 | (long)pair(base64In, i + 2, pairs) << 24
+						| pair(base64In, i + 4, pairs) << 12 | pair(base64In, i + 6, pairs);
+				out[pos++] = (char)(bits >>> 32);
+				out[pos++] = (char)(bits >>> 16);
+				out[pos++] = (char)bits;
+			}
+			long bits = 0; // the rest is collected bit by bit, each full 16 bits result in a character
+			int count = 0;
+			for (; i < len; i++) {
+				bits = bits << 6 | single(base64In, i, pairs);
+				count += 6;
+				if (count >= 16) {
+					count -= 16;
+					out[pos++] = (char)(bits >>> count);
 				}
-			} else if (rest == 6) {  // if the rest is 6, all bits can be copied and the next source and target can be processed
-				val[pos] <<= 6;  // make space for the next bits
-				val[pos++] |= tmp;  // set to the next target
-				rest = bitCount;
-			} else {
-				val[pos] <<= 6;  // make space for the next bits
-				val[pos] |= tmp;
-				rest -= 6;
 			}
+			outSize = 2L * out.length;
+			return new String(out);
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.BITS, false, base64In.length(), outSize);
 		}
-		
-		for (int i : val) {
-			sOut.append((char)i);
+	}
+
+	/**
+	 * Writes the two characters of an entry of the pair table to out.
+	 */
+	private static int putPair(byte[] out, int pos, char pair) {
+		out[pos] = (byte)(pair >>> 8);
+		out[pos + 1] = (byte)pair;
+		return pos + 2;
+	}
+
+	/**
+	 * Returns the 12 bit value of the characters at pos and pos + 1.
+	 */
+	private static int pair(CharSequence base64In, int pos, short[] pairs) {
+		return pair(base64In, base64In.charAt(pos), pos + 1, pairs);
+	}
+
+	/**
+	 * Returns the 6 bit value of the character at pos.
+	 */
+	private static int single(CharSequence base64In, int pos, short[] pairs) {
+		char c = base64In.charAt(pos);
+		int value = c < 128 ? pairs[MyBase64Tools.SINGLE_OFFSET + c] : -1;
+		if (value < 0) {
+			throw new MyBase64FormatException("Illegal Base64 character " + (int)c, pos);
 		}
-		return sOut.toString();
-	}	
+		return value;
+	}
+
+	/**
+	 * Returns the 12 bit value of the character c1 and the character at pos.
+	 */
+	private static int pair(CharSequence base64In, char c1, int pos, short[] pairs) {
+		char c2 = base64In.charAt(pos);
+		int value = (c1 | c2) < 128 ? pairs[c1 << 7 | c2] : -1;
+		if (value < 0) {
+			int invalid = c1 < 128 && pairs[MyBase64Tools.SINGLE_OFFSET + c1] >= 0 ? pos : pos - 1;
+			throw new MyBase64FormatException("Illegal Base64 character " + (int)base64In.charAt(invalid), invalid);
+		}
+		return value;
+	}
 }
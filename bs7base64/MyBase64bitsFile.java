@@ -2,12 +2,19 @@ package bs7base64;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Checksum;
 
 /**
  * Performance test for a base 64 encoding and decoding of a given file. 
  * The class implements the Base64 algorithm on a bit level. 
  */
 public class MyBase64bitsFile {
+	private static final int STREAM_SLICE = 3 * 16 * 1024; // bytes per write of the stream encoder
+	private static final int CHECKSUM_SLICE = 3 * 1024; // bytes per step, small enough to stay in the L1 cache for the checksum
+
 	public static void main(String[] args) throws FileNotFoundException, IOException {
 		String fileName = "BigDB.zip";
 		String path = "C:\\tmp\\";
@@ -19,12 +26,12 @@ public class MyBase64bitsFile {
 
 		long ts = System.currentTimeMillis();
 		
-		String sCode = binToBase64(inputData, 8);
-		int[] result = base64ToBinBytes(sCode, 8);
+		byte[] code = binToBase64Block(inputData);
+		byte[] result = base64ToBinBlock(code);
 		
 		System.out.println(System.currentTimeMillis() - ts);
 		
-		MyBase64Tools.writeToTextFile(fileCodePath, sCode);
+		MyBase64Tools.writeToBinFile(fileCodePath, code); // the Base64 characters are pure ASCII
 		MyBase64Tools.writeToBinFile(fileDecodePath, result);
 	}
 
@@ -35,113 +42,396 @@ public class MyBase64bitsFile {
 	 * @return Base64 encoded String.
 	 */
 	public static String binToBase64(byte[] data, int bitCount) {
-		char[] encoding = MyBase64Tools.buildEncoding();
+		if (bitCount == 8) { // for byte data the block encoder is much faster than the bit level loop
+			return new String(binToBase64Block(data), StandardCharsets.ISO_8859_1);
+		}
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			// the bits of the bytes are packed into 6 bit values by the shared radix bit packer
+			byte[] out = MyBaseNCodec.BASE64.encodeValues(data, bitCount);
+			outSize = out.length;
+			return new String(out, StandardCharsets.ISO_8859_1);
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.BITS, true, data.length, outSize);
+		}
+	}		
 
-		StringBuilder sOut = new StringBuilder();
+	/**
+	 * Converts the given byte data to Base64 and returns the ASCII characters as byte array.
+	 * Instead of handling single bits, every block of 3 bytes is converted to 4 characters.
+	 * The output array is sized exactly before the encoding starts.
+	 * @param data Data to convert.
+	 * @return Base64 encoded ASCII characters.
+	 */
+	public static byte[] binToBase64Block(byte[] data) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] out = new byte[MyBase64Tools.encodedLength(data.length)];
+			encodeBlock(data, 0, data.length, out, 0, MyBase64Tools.ENCODING_PAIRS);
+			outSize = out.length;
+			return out;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.BLOCK, true, data.length, outSize);
+		}
+	}
 
-		int shift = 6;  // usually the bit-shift is 6. However, if a two bytes must be split to two 
-					    // Base64 values, the shift decreases to 2 or 4.
-		int rest = bitCount;  // how many bits of a single byte are not coded yet.
-		int val = 0;  // here the Base64 value will be created on a bit level
-		int tmp = 0;  // temporary value, where 6 bits of the original byte will be held (and shifted)
-		int next = 0; // if the rest of the byte bits must be carried to the next Base64 value, the number of bits are held here.
-		
-		int mask = 0b111111; // for cutting out a chunk of 6 bits
-		mask <<= bitCount - 6; // the last 6 bits must be extracted!
-
-
-		for (byte c : data) {
-			rest = bitCount;
-			while (rest > 0) {
-				shift = next > 0 ? next : 6;  // if a byte must be split to two Base64 values the shift is != 0
-
-				tmp = c & mask; // cut out 6 bits
-				tmp >>= (bitCount - shift); // move the bits to the left
-				val = shift == 6 ? tmp : (val |= tmp);  // if a rest is handled, the bits must be added to the "old" value.
-                                                        // Otherwise it is ok to take all 6 bits 1:1
-				c <<= shift; // move the bits for handling the next chunk
-				rest -= shift; // always keep track of the bits that were not handled yet
-				if (rest < 0) { // if rest is negative, the absolute value is equal to the number of not handled bits
-					next = -1 * rest; // the next Base64 value will take the rest of the bits
-					rest = 0; // the current Base64/byte combination is done, the rest will be handled in the next Base64 value
-				} else {
-					next = 0; // reset next, because everything will be handled via the rest counter
-					sOut.append(encoding[val]);
-				}
+	/**
+	 * Converts the given byte data to Base64 and writes the ASCII characters to the stream.
+	 * The data is encoded in slices into a small buffer, so there is neither a String nor an
+	 * output array of the full size.
+	 * @param data Data to convert.
+	 * @param os Target stream, it is not closed and does not need to be buffered.
+	 * @return Number of characters written.
+	 * @throws IOException In case of any errors while writing.
+	 */
+	public static long binToBase64(byte[] data, OutputStream os) throws IOException {
+		byte[] buffer = new byte[STREAM_SLICE / 3 * 4];
+		long count = 0;
+		for (int pos = 0; pos < data.length; pos += STREAM_SLICE) { // the slices hold complete blocks, only the last one has a padding
+			int n = encodeBlock(data, pos, Math.min(STREAM_SLICE, data.length - pos), buffer, 0, MyBase64Tools.ENCODING_PAIRS);
+			os.write(buffer, 0, n);
+			count += n;
+		}
+		return count;
+	}
+
+	/**
+	 * Encodes len bytes of src to Base64 and writes the ASCII characters to dst. If len is not a
+	 * multiple of 3, the last block is completed with padding characters.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target array, must have space for (len + 2) / 3 * 4 characters.
+	 * @param dstPos Start position in dst.
+	 * @param encodingPairs Encoding table for pairs of characters (see MyBase64Tools.buildEncodingPairs).
+	 * @return Number of characters written.
+	 */
+	public static int encodeBlock(byte[] src, int srcPos, int len, byte[] dst, int dstPos, char[] encodingPairs) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len / 3 * 3; // end of the last complete block
+		while (sp < end) {
+			int bits = (src[sp++] & 0xff) << 16 | (src[sp++] & 0xff) << 8 | (src[sp++] & 0xff); // 24 bits of the block
+			char hi = encodingPairs[bits >>> 12]; // first two characters
+			char lo = encodingPairs[bits & 0xfff]; // last two characters
+			dst[dp++] = (byte)(hi >>> 8);
+			dst[dp++] = (byte)hi;
+			dst[dp++] = (byte)(lo >>> 8);
+			dst[dp++] = (byte)lo;
+		}
+		int rest = len - (end - srcPos);
+		if (rest > 0) { // 1 or 2 bytes are left: the missing bits are filled with 0 and the block is padded
+			int bits = (src[sp] & 0xff) << 16 | (rest == 2 ? (src[sp + 1] & 0xff) << 8 : 0);
+			char hi = encodingPairs[bits >>> 12];
+			dst[dp++] = (byte)(hi >>> 8);
+			dst[dp++] = (byte)hi;
+			dst[dp++] = rest == 2 ? (byte)(encodingPairs[bits & 0xfff] >>> 8) : (byte)'=';
+			dst[dp++] = (byte)'=';
+		}
+		return dp - dstPos;
+	}
+
+	/**
+	 * Decodes len Base64 characters of src and writes the bytes to dst. The padding characters of
+	 * the last block are evaluated, a missing padding is accepted as well. Two characters are
+	 * decoded with a single lookup in the pair table.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target array, must have space for len / 4 * 3 + 2 bytes.
+	 * @param dstPos Start position in dst.
+	 * @param decodingPairs Decoding table for pairs of characters (see MyBase64Tools.buildDecodingPairs).
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static int decodeBlock(byte[] src, int srcPos, int len, byte[] dst, int dstPos, short[] decodingPairs) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len;
+		// the padding characters are not decoded, they only indicate the missing bits of the last block
+		if (len > 0 && len % 4 == 0 && src[end - 1] == '=') {
+			end--;
+			if (src[end - 1] == '=') {
+				end--;
 			}
 		}
-		if (next != 0) {
-			sOut.append(encoding[val]);
-			for (int i = 0; i < next / 2; i++) { // one padding '=' for every two bits
-				sOut.append("=");
+		int blockEnd = sp + (end - sp) / 4 * 4; // end of the last complete block
+		while (sp < blockEnd) {
+			int c1 = src[sp];
+			int c2 = src[sp + 1];
+			int c3 = src[sp + 2];
+			int c4 = src[sp + 3];
+			if ((c1 | c2 | c3 | c4) < 0) { // a byte above 127 is never a Base64 character
+				throw invalidCharacter(src, sp, 4, decodingPairs);
+			}
+			int hi = decodingPairs[c1 << 7 | c2];
+			int lo = decodingPairs[c3 << 7 | c4];
+			if ((hi | lo) < 0) {
+				throw invalidCharacter(src, sp, 4, decodingPairs);
 			}
+			int bits = hi << 12 | lo;
+			dst[dp++] = (byte)(bits >>> 16);
+			dst[dp++] = (byte)(bits >>> 8);
+			dst[dp++] = (byte)bits;
+			sp += 4;
 		}
+		int rest = end - sp;
+		if (rest == 1) { // a single character carries only 6 bits, this is not enough for one byte
+			throw new MyBase64FormatException("Incomplete Base64 block", sp);
+		}
+		if (rest > 1) { // 2 characters carry 1 byte, 3 characters carry 2 bytes
+			int c1 = src[sp];
+			int c2 = src[sp + 1];
+			int v3 = 0; // value of the third character, 0 if there is none
+			if (rest == 3) {
+				v3 = src[sp + 2] < 0 ? -1 : decodingPairs[MyBase64Tools.SINGLE_OFFSET + src[sp + 2]];
+			}
+			if ((c1 | c2) < 0 || (decodingPairs[c1 << 7 | c2] | v3) < 0) {
+				throw invalidCharacter(src, sp, rest, decodingPairs);
+			}
+			int bits = decodingPairs[c1 << 7 | c2] << 12 | v3 << 6;
+			dst[dp++] = (byte)(bits >>> 16);
+			if (rest == 3) {
+				dst[dp++] = (byte)(bits >>> 8);
+			}
+		}
+		return dp - dstPos;
+	}
 
-		return sOut.toString();
-	}		
+	/**
+	 * Encodes like encodeBlock and updates the checksum with the input bytes in the same pass.
+	 * The data is processed in slices of a few KB: each slice is read by the checksum and then
+	 * encoded while it is still in the cache, so the memory is only read once.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target array, must have space for (len + 2) / 3 * 4 characters.
+	 * @param dstPos Start position in dst.
+	 * @param encodingPairs Encoding table for pairs of characters (see MyBase64Tools.buildEncodingPairs).
+	 * @param checksum Checksum which is updated with all bytes of src (e.g. CRC32C).
+	 * @return Number of characters written.
+	 */
+	public static int encodeBlock(byte[] src, int srcPos, int len, byte[] dst, int dstPos, char[] encodingPairs, Checksum checksum) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len;
+		while (end - sp > CHECKSUM_SLICE) { // the slices hold complete blocks, so only the last one has a padding
+			checksum.update(src, sp, CHECKSUM_SLICE);
+			dp += encodeBlock(src, sp, CHECKSUM_SLICE, dst, dp, encodingPairs);
+			sp += CHECKSUM_SLICE;
+		}
+		checksum.update(src, sp, end - sp);
+		dp += encodeBlock(src, sp, end - sp, dst, dp, encodingPairs);
+		return dp - dstPos;
+	}
+
+	/**
+	 * Decodes like decodeBlock and updates the checksum with the decoded bytes in the same pass.
+	 * Each slice of a few KB is decoded and then read by the checksum while it is still in the cache.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target array, must have space for len / 4 * 3 + 2 bytes.
+	 * @param dstPos Start position in dst.
+	 * @param decodingPairs Decoding table for pairs of characters (see MyBase64Tools.buildDecodingPairs).
+	 * @param checksum Checksum which is updated with all decoded bytes (e.g. CRC32C).
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static int decodeBlock(byte[] src, int srcPos, int len, byte[] dst, int dstPos, short[] decodingPairs, Checksum checksum) {
+		int slice = CHECKSUM_SLICE / 3 * 4;
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len;
+		while (end - sp > slice) {
+			int n = decodeBlock(src, sp, slice, dst, dp, decodingPairs);
+			if (n < CHECKSUM_SLICE) { // padding is only allowed at the end of the data
+				throw new MyBase64FormatException("Illegal Base64 character " + (int)'=', sp + slice - (CHECKSUM_SLICE - n));
+			}
+			checksum.update(dst, dp, n);
+			sp += slice;
+			dp += n;
+		}
+		int n = decodeBlock(src, sp, end - sp, dst, dp, decodingPairs);
+		checksum.update(dst, dp, n);
+		return dp + n - dstPos;
+	}
+
+	/**
+	 * Encodes len bytes of src to Base64 and writes the ASCII characters to dst. The method works
+	 * like encodeBlock for arrays, but on heap, direct or mapped buffers. Positions are absolute,
+	 * the position and limit of the buffers are not changed.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target buffer, must have space for (len + 2) / 3 * 4 characters.
+	 * @param dstPos Start position in dst.
+	 * @param encodingPairs Encoding table for pairs of characters (see MyBase64Tools.buildEncodingPairs).
+	 * @return Number of characters written.
+	 */
+	public static int encodeBlock(ByteBuffer src, int srcPos, int len, ByteBuffer dst, int dstPos, char[] encodingPairs) {
+		if (src.hasArray() && dst.hasArray()) { // heap buffers are handled by the array version
+			return encodeBlock(src.array(), src.arrayOffset() + srcPos, len, dst.array(), dst.arrayOffset() + dstPos, encodingPairs);
+		}
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len / 3 * 3;
+		while (sp < end) {
+			int bits = (src.get(sp) & 0xff) << 16 | (src.get(sp + 1) & 0xff) << 8 | (src.get(sp + 2) & 0xff);
+			char hi = encodingPairs[bits >>> 12];
+			char lo = encodingPairs[bits & 0xfff];
+			dst.put(dp, (byte)(hi >>> 8));
+			dst.put(dp + 1, (byte)hi);
+			dst.put(dp + 2, (byte)(lo >>> 8));
+			dst.put(dp + 3, (byte)lo);
+			sp += 3;
+			dp += 4;
+		}
+		if (sp < srcPos + len) { // the last 1 or 2 bytes are copied and encoded with the array version
+			byte[] tail = new byte[srcPos + len - sp];
+			byte[] out = new byte[4];
+			src.get(sp, tail);
+			dp += encodeBlock(tail, 0, tail.length, out, 0, encodingPairs);
+			dst.put(dp - 4, out);
+		}
+		return dp - dstPos;
+	}
+
+	/**
+	 * Decodes len Base64 characters of src and writes the bytes to dst. The method works like
+	 * decodeBlock for arrays, but on heap, direct or mapped buffers. Positions are absolute,
+	 * the position and limit of the buffers are not changed.
+	 * @param src Base64 characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target buffer, must have space for all decoded bytes.
+	 * @param dstPos Start position in dst.
+	 * @param decodingPairs Decoding table for pairs of characters (see MyBase64Tools.buildDecodingPairs).
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public static int decodeBlock(ByteBuffer src, int srcPos, int len, ByteBuffer dst, int dstPos, short[] decodingPairs) {
+		if (src.hasArray() && dst.hasArray()) {
+			try {
+				return decodeBlock(src.array(), src.arrayOffset() + srcPos, len, dst.array(), dst.arrayOffset() + dstPos, decodingPairs);
+			} catch (MyBase64FormatException e) {
+				throw e.withOffset(-src.arrayOffset()); // report the position in the buffer
+			}
+		}
+		int sp = srcPos;
+		int dp = dstPos;
+		int blockEnd = len > 0 ? srcPos + (len - 1) / 4 * 4 : srcPos; // the last block may hold padding
+		while (sp < blockEnd) {
+			int c1 = src.get(sp);
+			int c2 = src.get(sp + 1);
+			int c3 = src.get(sp + 2);
+			int c4 = src.get(sp + 3);
+			int hi = (c1 | c2) < 0 ? -1 : decodingPairs[c1 << 7 | c2]; // a byte above 127 is never a Base64 character
+			int lo = (c3 | c4) < 0 ? -1 : decodingPairs[c3 << 7 | c4];
+			if ((hi | lo) < 0) {
+				byte[] block = { (byte)c1, (byte)c2, (byte)c3, (byte)c4 };
+				throw invalidCharacter(block, 0, 4, decodingPairs).withOffset(sp);
+			}
+			int bits = hi << 12 | lo;
+			dst.put(dp, (byte)(bits >>> 16));
+			dst.put(dp + 1, (byte)(bits >>> 8));
+			dst.put(dp + 2, (byte)bits);
+			sp += 4;
+			dp += 3;
+		}
+		// the last block is copied and decoded with the array version, which handles the padding
+		byte[] tail = new byte[srcPos + len - sp];
+		byte[] out = new byte[3];
+		src.get(sp, tail);
+		int n;
+		try {
+			n = decodeBlock(tail, 0, tail.length, out, 0, decodingPairs);
+		} catch (MyBase64FormatException e) {
+			throw e.withOffset(sp);
+		}
+		dst.put(dp, out, 0, n);
+		return dp + n - dstPos;
+	}
+
+	/**
+	 * Searches the first invalid character in the given range and creates the exception for it.
+	 */
+	private static MyBase64FormatException invalidCharacter(byte[] src, int pos, int len, short[] decodingPairs) {
+		for (int i = pos; i < pos + len; i++) {
+			if (src[i] < 0 || decodingPairs[MyBase64Tools.SINGLE_OFFSET + src[i]] < 0) {
+				pos = i;
+				break;
+			}
+		}
+		return new MyBase64FormatException("Illegal Base64 character " + (src[pos] & 0xff), pos);
+	}
+
+	/**
+	 * Decodes the Base64 characters to an exactly presized byte array. Compared to base64ToBinBytes
+	 * the result needs a quarter of the memory and no further copy before it is written.
+	 * @param base64In Base64 characters as ASCII bytes.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If the input contains invalid characters or an incomplete block.
+	 */
+	public static byte[] base64ToBinBlock(byte[] base64In) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] out = new byte[MyBase64Tools.decodedLength(base64In, 0, base64In.length)];
+			decodeBlock(base64In, 0, base64In.length, out, 0, MyBase64Tools.DECODING_PAIRS);
+			outSize = out.length;
+			return out;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.BLOCK, false, base64In.length, outSize);
+		}
+	}
+
+	/**
+	 * Decodes the Base64 characters into the array given by the caller.
+	 * @param base64In Base64 characters as ASCII bytes.
+	 * @param pos Start position of the characters.
+	 * @param len Number of characters.
+	 * @param dst Target array, must have space for MyBase64Tools.decodedLength(base64In, pos, len) bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If the input contains invalid characters or an incomplete block.
+	 */
+	public static int base64ToBinBlock(byte[] base64In, int pos, int len, byte[] dst, int dstPos) {
+		return decodeBlock(base64In, pos, len, dst, dstPos, MyBase64Tools.DECODING_PAIRS);
+	}
+
+	/**
+	 * Decodes the Base64 characters over themselves, no additional memory is needed. This works,
+	 * because every block of 4 characters is read before its 3 bytes are written, and the writing
+	 * position never passes the reading position.
+	 * @param data Base64 characters as ASCII bytes, holds the decoded bytes afterwards.
+	 * @param len Number of characters.
+	 * @return Number of decoded bytes at the beginning of data.
+	 * @throws MyBase64FormatException If the input contains invalid characters or an incomplete block.
+	 */
+	public static int base64ToBinInPlace(byte[] data, int len) {
+		return decodeBlock(data, 0, len, data, 0, MyBase64Tools.DECODING_PAIRS);
+	}
 
 	/**
 	 * Converts a Base64 encoded String to a integer array, holding raw bit data.
 	 * @param base64In Base64 encoded String.
 	 * @param bitCount Number of Bits per target value. (for byte data should be 8)
 	 * @return bit data
+	 * @throws MyBase64FormatException If base64In contains invalid characters.
 	 */	
 	public static int[] base64ToBinBytes(String base64In, int bitCount) {
-		byte[] decoding = MyBase64Tools.buildDecodingBytes();
-		int mask2 = 0b11;   // mask for the case that only the rest of two bits must be decoded
-		int mask4 = 0b1111; // mask for the case that only the rest of four bits must be decoded
-		
-		// remove the tailing padding chars. It must not be processed because the bits are handled anyways
-		for (int i = 0; i < 2; i++) {
-			if (base64In.endsWith("=")) {
-				base64In= base64In.substring(0, base64In.length() - 1);
-			}
-		}
-		
-		char[] cCodes = base64In.toCharArray();  // for accessing the decoding array the index positions are needed
-		byte[] bCodes = new byte[cCodes.length]; // the algorithm processes bits - therefore it is better to use byte types
-		
-		int pos = 0;
-		for (char c : cCodes) {
-			bCodes[pos++] = decoding[c];
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			int[] val = MyBaseNCodec.BASE64.decodeValues(base64In, bitCount); // the 6 bit values are unpacked into bitCount bits
+			outSize = (long)val.length * bitCount / 8;
+			return val;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.BITS, false, base64In.length(), outSize);
 		}
-
-		int[] val = new int[6 * bCodes.length / bitCount];  // each bCode value carries 6 bits, so 6 x bCode.length is the 
-                                                            // number of bits, divided by bitCount is the number of target values.
-		
-		pos = 0; // position in the target array
-		int rest = bitCount;  // counts the number of bits per target value to process
-		byte tmp = 0; // here the byte is held for shifting.
-		for (byte b : bCodes) {
-			tmp = b;
-			if (rest == 2) {  // if a rest of two bits are carried from the last Base64 code
-				tmp >>= 4;    // shift 4, so only the left two bits remain.
-				val[pos] <<= 2;  // shift the "old" value by two in order to make space for the two bits
-				val[pos++] |= tmp;  // add the two bits to the "old" value and prepare to process the next target value
-				if (pos < val.length) { // if not the last position was reached, prepare the next target value
-					val[pos] |= b & mask4; // the next target will get the 4 remaining bits of the current Base64 value
-					rest = bitCount - 4;
-				}
-			} else if (rest == 4) { // same procedure, but for a remainder of 4 bits
-				tmp >>= 2;
-				val[pos] <<= 4;
-				val[pos++] |= tmp;
-				if (pos < val.length) {
-					val[pos] |= b & mask2;
-					rest = bitCount - 2;
-				}
-			} else if (rest == 6) {  // if the rest is 6, all bits can be copied and the next source and target can be processed
-				val[pos] <<= 6;  // make space for the next bits
-				val[pos++] |= tmp;  // set to the next target
-				rest = bitCount;
-			} else {
-				val[pos] <<= 6;  // make space for the next bits
-				val[pos] |= tmp;
-				rest -= 6;
-			}
-		}
-		
-		return val;
 	}
 	
 
@@ -1,6 +1,5 @@
 package bs7base64;
 
-import java.util.Hashtable;
 import java.util.Random;
 
 /**
@@ -8,9 +7,13 @@ import java.util.Random;
  * 16 bit values. The program generates random Strings, encodes them to Base64 then
  * decodes them again. If the original String differs from the original, it
  * writes an error message to the console. 
- * The encoding/decoding algorithm uses simple string manipulation.
+ * The encoding/decoding algorithm collects the bits in a MyBitBuffer and reads them
+ * in groups of 6 (encoding) or bitCount (decoding) bits.
  */
 public class MyBase64simple {
+	private static final char[] ENCODING = MyBase64Tools.buildEncoding(); // built once, never changed
+	private static final byte[] DECODING = MyBase64Tools.buildDecodingBytes();
+
 	public static void main(String[] args) {
 		int noOfCycles = 10000;
 		int minSizeOfString = 10;
@@ -47,40 +50,39 @@ public class MyBase64simple {
 	 * @return Base64 encoded String.
 	 */
 	public static String textToBase64(String textIn, int bitCount) {
-		String sOut = "";
-		String sBase = "";
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			MyBitBuffer bBase = new MyBitBuffer((long)textIn.length() * bitCount);
 
-		char[] encoding = MyBase64Tools.buildEncoding(); 
+			char[] encoding = ENCODING;
 
-		for (char c : textIn.toCharArray()) {
-			String tmp = MyBase64Tools.fillWithZeroLeft(Integer.toBinaryString(c), bitCount);
-			sBase = sBase + tmp;
-		}
-		
+			for (int i = 0; i < textIn.length(); i++) {
+				bBase.append(textIn.charAt(i), bitCount);
+			}
 		
-		int padding = (6 - sBase.length() * bitCount % 6) % 6;  // For padding calculation we need the rest of all input bits divided by 6 ("modulo")
-                                                                // 6 minus this number is the amount of padding bits. % 6 is needed to prevent 6 padding bits. 
-
-		sBase = MyBase64Tools.addCharRight(sBase, padding, '0'); // add the padding bits		
+			long bits = bBase.length();
+			int padding = (int)((6 - bits % 6) % 6);  // For padding calculation we need the rest of all input bits divided by 6 ("modulo")
+	                                                  // 6 minus this number is the amount of padding bits. % 6 is needed to prevent 6 padding bits. 
 
-		int size = sBase.length() / 6;
-		String[] indexGroups = new String[size];
-		
-		int pos = 0;
-		int iFrom = 0;
-		for (int iTo = 6; iTo <= sBase.length(); iTo += 6) {
-			indexGroups[pos++] = sBase.substring(iFrom, iTo);
-			iFrom = iTo;
-		}
-		for (String index : indexGroups) {
-			sOut += encoding[Integer.parseInt(index, 2)];
-		}
+			StringBuilder sOut = new StringBuilder(Math.toIntExact((bits + padding) / 6 + padding / 2));
+			long pos = 0;
+			for (; pos + 6 <= bits; pos += 6) {
+				sOut.append(encoding[(int)bBase.read(pos, 6)]);
+			}
+			if (padding > 0) { // the last group is filled with the padding bits
+				sOut.append(encoding[(int)bBase.read(pos, 6 - padding) << padding]);
+			}
 		
-		for (int i = 0; i < padding / 2; i++) { // add the padding indicators
-			sOut += "=";
-		}
+			for (int i = 0; i < padding / 2; i++) { // add the padding indicators
+				sOut.append('=');
+			}
 
-		return sOut;
+			outSize = sOut.length();
+			return sOut.toString();
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.SIMPLE, true, (long)textIn.length() * bitCount / 8, outSize);
+		}
 	}	
 	
 	/**
@@ -90,32 +92,34 @@ public class MyBase64simple {
 	 * @return Clear text String
 	 */	
 	public static String base64ToText(String base64In, int bitCount) {
-		String sOut = "";
-		String sCodes = "";
-		Hashtable<Character, String> decoding = MyBase64Tools.buildDecodingStrings();
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] decoding = DECODING;
 		
-		int fillBits = 0;  // extract number of fill bits in order to remove them from the output string
-		for (int i = 0; i < 2; i++) {
-			if (base64In.endsWith("=")) {
+			int chars = base64In.length();
+			int fillBits = 0;  // extract number of fill bits in order to remove them from the output
+			for (int i = 0; i < 2 && chars > 0 && base64In.charAt(chars - 1) == '='; i++) {
 				fillBits += 2;
-				base64In= base64In.substring(0, base64In.length() - 1);
+				chars--;
 			}
-		}
 		
-		for (char c : base64In.toCharArray()) {
-			sCodes += decoding.get(c); // access array for decoding info
-		}
+			MyBitBuffer bCodes = new MyBitBuffer(chars * 6L);
+			for (int i = 0; i < chars; i++) {
+				bCodes.append(decoding[base64In.charAt(i)], 6); // access array for decoding info
+			}
 		
-		sCodes = sCodes.substring(0, sCodes.length() - fillBits);
-
-		int iFrom = 0;
-		for (int iTo = bitCount; iTo <= sCodes.length(); iTo += bitCount) {
-			int c = Integer.parseInt(sCodes.substring(iFrom, iTo), 2);
-			sOut += (char)c;
-			iFrom = iTo;
-		}
+			long bits = Math.max(0, bCodes.length() - fillBits);
+			StringBuilder sOut = new StringBuilder((int)(bits / bitCount));
+			for (long pos = 0; pos + bitCount <= bits; pos += bitCount) {
+				sOut.append((char)bCodes.read(pos, bitCount));
+			}
 		
-		return sOut;
+			outSize = (long)sOut.length() * bitCount / 8;
+			return sOut.toString();
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.SIMPLE, false, base64In.length(), outSize);
+		}
 	}
 	
 }
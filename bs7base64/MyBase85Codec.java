@@ -0,0 +1,145 @@
+package bs7base64;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Radix codec with 85 characters: 4 bytes are read as an unsigned 32 bit number and written
+ * as 5 digits of base 85. An incomplete last block of n bytes is filled with 0 and written with
+ * n + 1 characters, so no padding character is needed.
+ * The "z" abbreviation for blocks of zeros and the "&lt;~ ~&gt;" delimiters of Adobe Ascii85
+ * are not used, so the encoded size only depends on the data size.
+ */
+public class MyBase85Codec extends MyRadixCodec {
+	/** Ascii85: the characters '!' to 'u'. */
+	public static final MyBase85Codec ASCII85 = new MyBase85Codec(buildAscii85());
+	/** Z85 of ZeroMQ (RFC 32), which avoids quotes and backslashes. */
+	public static final MyBase85Codec Z85 = new MyBase85Codec(
+			"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ.-:+=^!/*?&<>()[]{}@%$#");
+
+	private static final long MAX_BLOCK = 0xffffffffL; // highest value of 4 bytes
+
+	private final byte[] encoding;
+	private final byte[] decoding;
+
+	/**
+	 * Creates a codec for the given alphabet.
+	 * @param alphabet 85 characters in the order of their values.
+	 */
+	public MyBase85Codec(String alphabet) {
+		if (alphabet.length() != 85) {
+			throw new IllegalArgumentException("The alphabet must have 85 characters");
+		}
+		this.encoding = alphabet.getBytes(StandardCharsets.ISO_8859_1);
+		this.decoding = buildDecoding(encoding);
+	}
+
+	@Override
+	public int inputBlockSize() {
+		return 4;
+	}
+
+	@Override
+	public int outputBlockSize() {
+		return 5;
+	}
+
+	@Override
+	public int encodedLength(int len) {
+		return Math.toIntExact(len / 4 * 5L + (len % 4 == 0 ? 0 : len % 4 + 1)); // long, so a large len does not overflow
+	}
+
+	@Override
+	public int decodedLength(byte[] src, int pos, int len) {
+		return len / 5 * 4 + (len % 5 == 0 ? 0 : len % 5 - 1);
+	}
+
+	@Override
+	public int encode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len / 4 * 4;
+		while (sp < end) {
+			long value = (src[sp] & 0xffL) << 24 | (src[sp + 1] & 0xff) << 16 | (src[sp + 2] & 0xff) << 8 | (src[sp + 3] & 0xff);
+			putDigits(value, dst, dp, 5);
+			sp += 4;
+			dp += 5;
+		}
+		int rest = srcPos + len - sp;
+		if (rest > 0) { // the block is filled with 0, only the first rest + 1 digits are needed
+			long value = 0;
+			for (int i = 0; i < 4; i++) {
+				value = value << 8 | (i < rest ? src[sp + i] & 0xff : 0);
+			}
+			putDigits(value, dst, dp, rest + 1);
+			dp += rest + 1;
+		}
+		return dp - dstPos;
+	}
+
+	@Override
+	public int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len / 5 * 5;
+		while (sp < end) {
+			long value = getDigits(src, sp, 5);
+			dst[dp++] = (byte)(value >>> 24);
+			dst[dp++] = (byte)(value >>> 16);
+			dst[dp++] = (byte)(value >>> 8);
+			dst[dp++] = (byte)value;
+			sp += 5;
+		}
+		int rest = srcPos + len - sp;
+		if (rest == 1) { // a single character carries less than one byte
+			throw new MyBase64FormatException("Incomplete block", sp);
+		}
+		if (rest > 1) {
+			long value = getDigits(src, sp, rest);
+			for (int i = rest; i < 5; i++) { // fill with the highest digit, so the cut off bytes round correctly
+				value = value * 85 + 84;
+			}
+			for (int shift = 24; shift > 32 - 8 * rest; shift -= 8) {
+				dst[dp++] = (byte)(value >>> shift);
+			}
+		}
+		return dp - dstPos;
+	}
+
+	/**
+	 * Writes the first count of the 5 base 85 digits of value to dst.
+	 */
+	private void putDigits(long value, byte[] dst, int pos, int count) {
+		for (int i = 4; i >= 0; i--) {
+			if (i < count) {
+				dst[pos + i] = encoding[(int)(value % 85)];
+			}
+			value /= 85;
+		}
+	}
+
+	/**
+	 * Reads count base 85 digits of src and returns their value.
+	 */
+	private long getDigits(byte[] src, int pos, int count) {
+		long value = 0;
+		for (int i = pos; i < pos + count; i++) {
+			int digit = decoding[src[i] & 0xff];
+			if (digit < 0) {
+				throw new MyBase64FormatException("Illegal character " + (src[i] & 0xff), i);
+			}
+			value = value * 85 + digit;
+		}
+		if (count == 5 && value > MAX_BLOCK) {
+			throw new MyBase64FormatException("Block value too large", pos);
+		}
+		return value;
+	}
+
+	private static String buildAscii85() {
+		StringBuilder alphabet = new StringBuilder();
+		for (char c = '!'; c <= 'u'; c++) {
+			alphabet.append(c);
+		}
+		return alphabet.toString();
+	}
+}
@@ -0,0 +1,291 @@
+package bs7base64;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Radix codec for alphabets with a power of two size (RFC 4648): every character carries
+ * bitCount bits. The encoder collects a block of bytes in a long and cuts it into bitCount
+ * chunks, the decoder works the other way round. This is the generalization of the bitCount
+ * loop of MyBase64bits, but with a whole block per step and without any allocation.
+ * encodeValues and decodeValues pack values of any size (e.g. 16 bit characters) and are
+ * used by the bitCount methods of MyBase64bits and MyBase64bitsFile.
+ */
+public class MyBaseNCodec extends MyRadixCodec {
+	/** Base16 (hex) with upper case digits. */
+	public static final MyBaseNCodec BASE16 = new MyBaseNCodec("0123456789ABCDEF", false);
+	/** Base32 as defined by RFC 4648 with padding. */
+	public static final MyBaseNCodec BASE32 = new MyBaseNCodec("ABCDEFGHIJKLMNOPQRSTUVWXYZ234567", true);
+	/** Base32 with the "extended hex" alphabet of RFC 4648 with padding. */
+	public static final MyBaseNCodec BASE32_HEX = new MyBaseNCodec("0123456789ABCDEFGHIJKLMNOPQRSTUV", true);
+	/** Base64 as defined by RFC 4648 with padding. */
+	public static final MyBaseNCodec BASE64 = new MyBaseNCodec(new String(MyBase64Tools.buildEncoding()), true);
+
+	private final int bitCount; // bits per character
+	private final int mask; // for cutting out bitCount bits
+	private final int inputBlockSize;
+	private final int outputBlockSize;
+	private final boolean padding;
+	private final byte[] encoding;
+	private final byte[] decoding;
+
+	/**
+	 * Creates a codec for the given alphabet.
+	 * @param alphabet Characters in the order of their values, the length must be 2, 4, 8, 16, 32 or 64.
+	 * @param padding true if the last block is filled up with '='.
+	 */
+	public MyBaseNCodec(String alphabet, boolean padding) {
+		if (Integer.bitCount(alphabet.length()) != 1 || alphabet.length() > 64) {
+			throw new IllegalArgumentException("The alphabet size must be a power of 2 up to 64");
+		}
+		this.bitCount = Integer.numberOfTrailingZeros(alphabet.length());
+		this.mask = (1 << bitCount) - 1;
+		int blockBits = bitCount * 8 / gcd(bitCount, 8); // least common multiple of bitCount and 8
+		this.inputBlockSize = blockBits / 8;
+		this.outputBlockSize = blockBits / bitCount;
+		this.padding = padding;
+		this.encoding = alphabet.getBytes(StandardCharsets.ISO_8859_1);
+		this.decoding = buildDecoding(encoding);
+	}
+
+	/**
+	 * Creates a copy of this codec with or without padding.
+	 * @param padding true if the last block is filled up with '='.
+	 * @return codec with the same alphabet.
+	 */
+	public MyBaseNCodec withPadding(boolean padding) {
+		return new MyBaseNCodec(new String(encoding, StandardCharsets.ISO_8859_1), padding);
+	}
+
+	@Override
+	public int inputBlockSize() {
+		return inputBlockSize;
+	}
+
+	@Override
+	public int outputBlockSize() {
+		return outputBlockSize;
+	}
+
+	@Override
+	public int encodedLength(int len) {
+		if (padding) {
+			return Math.toIntExact((len + inputBlockSize - 1L) / inputBlockSize * outputBlockSize); // long, so a large len does not overflow
+		}
+		int rest = len % inputBlockSize;
+		return Math.toIntExact((long)len / inputBlockSize * outputBlockSize + (rest * 8 + bitCount - 1) / bitCount);
+	}
+
+	@Override
+	public int decodedLength(byte[] src, int pos, int len) {
+		int chars = len;
+		while (chars > 0 && src[pos + chars - 1] == '=' && len - chars < outputBlockSize - 1) {
+			chars--; // the padding characters carry no data
+		}
+		return chars / outputBlockSize * inputBlockSize + chars % outputBlockSize * bitCount / 8;
+	}
+
+	@Override
+	public int encode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len / inputBlockSize * inputBlockSize;
+		int lastShift = (outputBlockSize - 1) * bitCount;
+		while (sp < end) {
+			long bits = 0;
+			for (int i = 0; i < inputBlockSize; i++) {
+				bits = bits << 8 | (src[sp++] & 0xff);
+			}
+			for (int shift = lastShift; shift >= 0; shift -= bitCount) {
+				dst[dp++] = encoding[(int)(bits >>> shift) & mask];
+			}
+		}
+		int rest = srcPos + len - sp;
+		if (rest > 0) { // the missing bits of the last character are filled with 0
+			long bits = 0;
+			for (int i = 0; i < rest; i++) {
+				bits = bits << 8 | (src[sp++] & 0xff);
+			}
+			int chars = (rest * 8 + bitCount - 1) / bitCount;
+			bits <<= chars * bitCount - rest * 8;
+			for (int shift = (chars - 1) * bitCount; shift >= 0; shift -= bitCount) {
+				dst[dp++] = encoding[(int)(bits >>> shift) & mask];
+			}
+			for (int i = chars; padding && i < outputBlockSize; i++) {
+				dst[dp++] = '=';
+			}
+		}
+		return dp - dstPos;
+	}
+
+	@Override
+	public int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos) {
+		int sp = srcPos;
+		int dp = dstPos;
+		int end = srcPos + len;
+		// the padding characters are not decoded, they only indicate the missing bits of the last block
+		while (end > srcPos && src[end - 1] == '=' && srcPos + len - end < outputBlockSize - 1) {
+			end--;
+		}
+		int blockEnd = sp + (end - sp) / outputBlockSize * outputBlockSize;
+		int lastShift = (inputBlockSize - 1) * 8;
+		while (sp < blockEnd) {
+			long bits = 0;
+			for (int i = 0; i < outputBlockSize; i++) {
+				bits = bits << bitCount | value(src, sp++);
+			}
+			for (int shift = lastShift; shift >= 0; shift -= 8) {
+				dst[dp++] = (byte)(bits >>> shift);
+			}
+		}
+		int rest = end - sp;
+		if (rest > 0) {
+			int bytes = rest * bitCount / 8;
+			if (bytes == 0 || (bytes * 8 + bitCount - 1) / bitCount != rest) { // no valid length of a last block
+				throw new MyBase64FormatException("Incomplete block", sp);
+			}
+			long bits = 0;
+			for (int i = 0; i < rest; i++) {
+				bits = bits << bitCount | value(src, sp++);
+			}
+			bits >>>= rest * bitCount - bytes * 8; // remove the fill bits
+			for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+				dst[dp++] = (byte)(bits >>> shift);
+			}
+		}
+		return dp - dstPos;
+	}
+
+	/**
+	 * Encodes a sequence of values with valueBits bits each, e.g. the 16 bit characters of a
+	 * String. This is the bitCount loop of MyBase64bits for any value and character size: the
+	 * values are shifted into a bit accumulator, from which a character is taken as soon as it
+	 * holds bitCount bits. The last character is filled with 0 bits, with padding the last block
+	 * is filled up with '='.
+	 * @param values Values to convert, only the lowest valueBits bits of each character are used.
+	 * @param valueBits Number of bits per value (1 to 32).
+	 * @return Encoded ASCII characters.
+	 */
+	public byte[] encodeValues(CharSequence values, int valueBits) {
+		checkValueBits(valueBits);
+		int len = values.length();
+		byte[] out = new byte[valuesEncodedLength((long)len * valueBits)];
+		long valueMask = (1L << valueBits) - 1;
+		long bits = 0; // bit accumulator, holds less than bitCount + valueBits bits
+		int count = 0; // number of bits in the accumulator
+		int dp = 0;
+		for (int i = 0; i < len; i++) {
+			bits = bits << valueBits | (values.charAt(i) & valueMask);
+			count += valueBits;
+			while (count >= bitCount) {
+				count -= bitCount;
+				out[dp++] = encoding[(int)(bits >>> count) & mask];
+			}
+		}
+		finishValues(bits, count, out, dp);
+		return out;
+	}
+
+	/**
+	 * Encodes a sequence of byte values with valueBits bits each, see encodeValues(CharSequence, int).
+	 * @param values Values to convert, only the lowest valueBits bits of each byte are used.
+	 * @param valueBits Number of bits per value (1 to 8).
+	 * @return Encoded ASCII characters.
+	 */
+	public byte[] encodeValues(byte[] values, int valueBits) {
+		if (valueBits > 8) {
+			throw new IllegalArgumentException("A byte has at most 8 bits");
+		}
+		checkValueBits(valueBits);
+		byte[] out = new byte[valuesEncodedLength((long)values.length * valueBits)];
+		int valueMask = (1 << valueBits) - 1;
+		long bits = 0;
+		int count = 0;
+		int dp = 0;
+		for (byte b : values) {
+			bits = bits << valueBits | (b & valueMask);
+			count += valueBits;
+			while (count >= bitCount) {
+				count -= bitCount;
+				out[dp++] = encoding[(int)(bits >>> count) & mask];
+			}
+		}
+		finishValues(bits, count, out, dp);
+		return out;
+	}
+
+	/**
+	 * Decodes the characters into values with valueBits bits each, the reverse of encodeValues.
+	 * Bits at the end which do not form a complete value are the fill bits of the last character.
+	 * @param src Encoded characters.
+	 * @param valueBits Number of bits per value (1 to 32).
+	 * @return Decoded values.
+	 * @throws MyBase64FormatException If src contains invalid characters.
+	 */
+	public int[] decodeValues(CharSequence src, int valueBits) {
+		checkValueBits(valueBits);
+		int len = src.length();
+		// the padding characters are not decoded, they only indicate the missing bits of the last block
+		for (int i = 0; i < outputBlockSize - 1 && len > 0 && src.charAt(len - 1) == '='; i++) {
+			len--;
+		}
+		int[] out = new int[(int)((long)len * bitCount / valueBits)];
+		long bits = 0; // bit accumulator, holds less than bitCount + valueBits bits
+		int count = 0; // number of bits in the accumulator
+		int pos = 0;
+		for (int i = 0; i < len; i++) {
+			char c = src.charAt(i);
+			int value = c < 256 ? decoding[c] : -1;
+			if (value < 0) {
+				throw new MyBase64FormatException("Illegal character " + (int)c, i);
+			}
+			bits = bits << bitCount | value;
+			count += bitCount;
+			while (count >= valueBits) {
+				count -= valueBits;
+				out[pos++] = (int)(bits >>> count) & (int)((1L << valueBits) - 1);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Number of characters of the given number of bits including the padding.
+	 */
+	private int valuesEncodedLength(long bits) {
+		long chars = (bits + bitCount - 1) / bitCount;
+		if (padding) {
+			chars = (chars + outputBlockSize - 1) / outputBlockSize * outputBlockSize;
+		}
+		return Math.toIntExact(chars);
+	}
+
+	/**
+	 * Writes the last character with the remaining bits of the accumulator and the padding.
+	 */
+	private void finishValues(long bits, int count, byte[] out, int dp) {
+		if (count > 0) { // the missing bits of the last character are filled with 0
+			out[dp++] = encoding[(int)(bits << (bitCount - count)) & mask];
+		}
+		while (dp < out.length) {
+			out[dp++] = '=';
+		}
+	}
+
+	private static void checkValueBits(int valueBits) {
+		if (valueBits < 1 || valueBits > 32) {
+			throw new IllegalArgumentException("The number of bits per value must be 1 to 32");
+		}
+	}
+
+	private int value(byte[] src, int pos) {
+		int value = decoding[src[pos] & 0xff];
+		if (value < 0) {
+			throw new MyBase64FormatException("Illegal character " + (src[pos] & 0xff), pos);
+		}
+		return value;
+	}
+
+	private static int gcd(int a, int b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+}
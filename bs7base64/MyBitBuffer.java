@@ -0,0 +1,215 @@
+package bs7base64;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growing sequence of bits, packed into a long array (64 bits per element, the first bit is
+ * the highest bit of the first element). It replaces the "0"/"1" Strings of the simple
+ * implementations: a bit needs 1 bit of memory instead of a 16 bit character, and fields of up to
+ * 64 bits are appended and read with shift operations instead of substring and Integer.parseInt.
+ */
+public final class MyBitBuffer {
+	private long[] words;
+	private long length = 0; // number of bits
+
+	/**
+	 * Creates an empty buffer.
+	 */
+	public MyBitBuffer() {
+		this(1024);
+	}
+
+	/**
+	 * Creates an empty buffer with space for the given number of bits.
+	 * @param capacity Number of bits the buffer can hold before it grows.
+	 */
+	public MyBitBuffer(long capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity must not be negative");
+		}
+		words = new long[wordCount(capacity)];
+	}
+
+	/**
+	 * Creates a buffer with the bits of the given bytes (8 bits per byte, highest bit first).
+	 * @param data Bytes to copy.
+	 * @return Buffer with data.length * 8 bits.
+	 */
+	public static MyBitBuffer fromBytes(byte[] data) {
+		MyBitBuffer bits = new MyBitBuffer(data.length * 8L);
+		bits.appendBytes(data, 0, data.length);
+		return bits;
+	}
+
+	/**
+	 * Creates a buffer with the bits of a String pattern like "01000001".
+	 * @param bits Characters '0' and '1'.
+	 * @return Buffer with bits.length() bits.
+	 * @throws IllegalArgumentException If bits contains other characters.
+	 */
+	public static MyBitBuffer fromBitString(CharSequence bits) {
+		int len = bits.length();
+		MyBitBuffer buffer = new MyBitBuffer(len);
+		int i = 0;
+		for (; i + 64 <= len; i += 64) { // 64 bits at once
+			long v = 0;
+			for (int j = i; j < i + 64; j++) {
+				v = v << 1 | bit(bits, j);
+			}
+			buffer.append(v, 64);
+		}
+		for (; i < len; i++) {
+			buffer.append(bit(bits, i), 1);
+		}
+		return buffer;
+	}
+
+	/**
+	 * @return Number of bits.
+	 */
+	public long length() {
+		return length;
+	}
+
+	/**
+	 * Appends the lowest bitCount bits of value, the highest of them first.
+	 * @param value Bits to append, higher bits are ignored.
+	 * @param bitCount Number of bits (1 to 64).
+	 */
+	public void append(long value, int bitCount) {
+		checkBitCount(bitCount);
+		ensureCapacity(length + bitCount);
+		value &= mask(bitCount);
+		int word = (int)(length >>> 6);
+		int free = 64 - (int)(length & 63); // unused bits of the last element
+		if (bitCount <= free) {
+			words[word] |= value << (free - bitCount);
+		} else { // the field is split over two elements
+			words[word] |= value >>> (bitCount - free);
+			words[word + 1] = value << (64 - (bitCount - free));
+		}
+		length += bitCount;
+	}
+
+	/**
+	 * Appends the bits of len bytes (8 bits per byte, highest bit first).
+	 * @param data Bytes to append.
+	 * @param off Start position in data.
+	 * @param len Number of bytes.
+	 */
+	public void appendBytes(byte[] data, int off, int len) {
+		ensureCapacity(length + len * 8L);
+		int i = 0;
+		for (; i + 8 <= len; i += 8) { // 8 bytes at once
+			long v = 0;
+			for (int j = 0; j < 8; j++) {
+				v = v << 8 | data[off + i + j] & 0xff;
+			}
+			append(v, 64);
+		}
+		for (; i < len; i++) {
+			append(data[off + i], 8);
+		}
+	}
+
+	/**
+	 * Reads bitCount bits starting at the given bit position.
+	 * @param bitPos Position of the first bit.
+	 * @param bitCount Number of bits (1 to 64).
+	 * @return The bits as the lowest bits of the result, the higher bits are 0.
+	 */
+	public long read(long bitPos, int bitCount) {
+		checkBitCount(bitCount);
+		if (bitPos < 0 || bitPos + bitCount > length) {
+			throw new IndexOutOfBoundsException("Bits " + bitPos + " to " + (bitPos + bitCount) + " out of bounds for length " + length);
+		}
+		int word = (int)(bitPos >>> 6);
+		int free = 64 - (int)(bitPos & 63); // bits from bitPos to the end of the element
+		long value;
+		if (bitCount <= free) {
+			value = words[word] >>> (free - bitCount);
+		} else { // the field is split over two elements
+			value = words[word] << (bitCount - free) | words[word + 1] >>> (64 - (bitCount - free));
+		}
+		return value & mask(bitCount);
+	}
+
+	/**
+	 * Shortens the buffer, the removed bits are cleared.
+	 * @param newLength Number of bits to keep.
+	 */
+	public void truncate(long newLength) {
+		if (newLength < 0 || newLength > length) {
+			throw new IndexOutOfBoundsException("Length " + newLength + " out of bounds for length " + length);
+		}
+		int word = (int)(newLength >>> 6);
+		int used = (int)(newLength & 63);
+		if (used > 0) {
+			words[word++] &= ~(-1L >>> used); // keep the highest used bits
+		}
+		Arrays.fill(words, word, wordCount(length), 0);
+		length = newLength;
+	}
+
+	/**
+	 * Removes all bits, the memory is kept.
+	 */
+	public void clear() {
+		truncate(0);
+	}
+
+	/**
+	 * Returns the complete bytes of the buffer (8 bits per byte, highest bit first), bits after
+	 * the last complete byte are ignored.
+	 * @return Array with length() / 8 bytes.
+	 */
+	public byte[] toBytes() {
+		byte[] data = new byte[Math.toIntExact(length / 8)];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte)(words[i >>> 3] >>> (56 - (i & 7) * 8));
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the bits as String pattern like "01000001", the reverse of fromBitString.
+	 * @return String with length() characters '0' and '1'.
+	 */
+	public String toBitString() {
+		byte[] chars = new byte[Math.toIntExact(length)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (byte)('0' + (words[i >>> 6] >>> (63 - (i & 63)) & 1));
+		}
+		return new String(chars, StandardCharsets.ISO_8859_1); // 1 byte per character, no further copy
+	}
+
+	private void ensureCapacity(long bits) {
+		int needed = wordCount(bits);
+		if (needed > words.length) {
+			words = Arrays.copyOf(words, Math.max(needed, (int)Math.min(Integer.MAX_VALUE - 8, words.length * 3L / 2))); // grow by 50 %
+		}
+	}
+
+	private static int wordCount(long bits) {
+		return Math.toIntExact((bits + 63) >>> 6);
+	}
+
+	private static int bit(CharSequence bits, int pos) {
+		char c = bits.charAt(pos);
+		if (c != '0' && c != '1') {
+			throw new IllegalArgumentException("Illegal bit character " + (int)c + " at position " + pos);
+		}
+		return c - '0';
+	}
+
+	private static long mask(int bitCount) {
+		return -1L >>> (64 - bitCount);
+	}
+
+	private static void checkBitCount(int bitCount) {
+		if (bitCount < 1 || bitCount > 64) {
+			throw new IllegalArgumentException("The number of bits must be 1 to 64");
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package bs7base64;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Byte memory with 64 bit positions, which can be larger than an array or a ByteBuffer.
+ * The memory consists of ByteBuffer chunks of the same size (the last one can be smaller),
+ * which are either mapped from a file or allocated outside of the Java heap.
+ * A position is split into the number of the chunk and the position within the chunk.
+ */
+public final class MyLargeBuffer {
+	/**
+	 * Default size of a chunk (multiple of 3 and 4, so the Base64 blocks do not cross chunk borders
+	 * when both buffers start at the beginning of a chunk).
+	 */
+	public static final int CHUNK_SIZE = 12 * 64 * 1024 * 1024;
+
+	private final ByteBuffer[] chunks;
+	private final int chunkSize;
+	private final long size;
+
+	private MyLargeBuffer(ByteBuffer[] chunks, int chunkSize, long size) {
+		this.chunks = chunks;
+		this.chunkSize = chunkSize;
+		this.size = size;
+	}
+
+	/**
+	 * Maps a region of a file into memory. Mapping beyond the end of a file which is opened
+	 * for writing enlarges the file.
+	 * @param channel File to map.
+	 * @param mode READ_ONLY or READ_WRITE.
+	 * @param pos Start position in the file.
+	 * @param size Number of bytes to map.
+	 * @return Buffer for the region.
+	 * @throws IOException In case of any mapping error.
+	 */
+	public static MyLargeBuffer map(FileChannel channel, MapMode mode, long pos, long size) throws IOException {
+		ByteBuffer[] chunks = new ByteBuffer[chunkCount(size, CHUNK_SIZE)];
+		for (int i = 0; i < chunks.length; i++) {
+			long offset = (long)i * CHUNK_SIZE;
+			chunks[i] = channel.map(mode, pos + offset, Math.min(CHUNK_SIZE, size - offset));
+		}
+		return new MyLargeBuffer(chunks, CHUNK_SIZE, size);
+	}
+
+	/**
+	 * Allocates memory outside of the Java heap.
+	 * @param size Number of bytes.
+	 * @return Buffer filled with 0.
+	 */
+	public static MyLargeBuffer allocateDirect(long size) {
+		return allocateDirect(size, CHUNK_SIZE);
+	}
+
+	/**
+	 * Allocates memory outside of the Java heap with the given chunk size.
+	 * @param size Number of bytes.
+	 * @param chunkSize Number of bytes per chunk.
+	 * @return Buffer filled with 0.
+	 */
+	public static MyLargeBuffer allocateDirect(long size, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("The chunk size must be positive");
+		}
+		ByteBuffer[] chunks = new ByteBuffer[chunkCount(size, chunkSize)];
+		for (int i = 0; i < chunks.length; i++) {
+			chunks[i] = ByteBuffer.allocateDirect((int)Math.min(chunkSize, size - (long)i * chunkSize));
+		}
+		return new MyLargeBuffer(chunks, chunkSize, size);
+	}
+
+	/**
+	 * Wraps an array into a buffer with a single chunk.
+	 * @param data Array which backs the buffer.
+	 * @return Buffer with the size of the array.
+	 */
+	public static MyLargeBuffer wrap(byte[] data) {
+		return new MyLargeBuffer(new ByteBuffer[] { ByteBuffer.wrap(data) }, Math.max(1, data.length), data.length);
+	}
+
+	/**
+	 * @return Number of bytes.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @param pos Position of the byte.
+	 * @return Byte at pos.
+	 */
+	public byte get(long pos) {
+		return chunk(pos).get(offset(pos));
+	}
+
+	/**
+	 * @param pos Position of the byte.
+	 * @param b Byte to write at pos.
+	 */
+	public void put(long pos, byte b) {
+		chunk(pos).put(offset(pos), b);
+	}
+
+	/**
+	 * Copies len bytes starting at pos to dst, the bytes may be part of several chunks.
+	 * @param pos Start position in this buffer.
+	 * @param dst Target array.
+	 * @param dstPos Start position in dst.
+	 * @param len Number of bytes.
+	 */
+	public void get(long pos, byte[] dst, int dstPos, int len) {
+		for (int i = 0; i < len; i++) {
+			dst[dstPos + i] = get(pos + i);
+		}
+	}
+
+	/**
+	 * Copies len bytes of src to this buffer starting at pos, the bytes may be part of several chunks.
+	 * @param pos Start position in this buffer.
+	 * @param src Source array.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes.
+	 */
+	public void put(long pos, byte[] src, int srcPos, int len) {
+		for (int i = 0; i < len; i++) {
+			put(pos + i, src[srcPos + i]);
+		}
+	}
+
+	/**
+	 * Returns the chunk that holds the byte at pos.
+	 */
+	ByteBuffer chunk(long pos) {
+		if (pos < 0 || pos >= size) {
+			throw new IndexOutOfBoundsException("Position " + pos + " out of bounds for size " + size);
+		}
+		return chunks[(int)(pos / chunkSize)];
+	}
+
+	/**
+	 * Returns the position of pos within its chunk.
+	 */
+	int offset(long pos) {
+		return (int)(pos % chunkSize);
+	}
+
+	/**
+	 * Returns the number of bytes from pos to the end of its chunk.
+	 */
+	int remainingInChunk(long pos) {
+		return chunk(pos).limit() - offset(pos);
+	}
+
+	private static int chunkCount(long size, int chunkSize) {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size must not be negative");
+		}
+		return Math.toIntExact((size + chunkSize - 1) / chunkSize);
+	}
+}
@@ -0,0 +1,162 @@
+package bs7base64;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Common base of the radix codecs (Base16, Base32, Base64, Base85). A codec converts blocks of
+ * inputBlockSize bytes to blocks of outputBlockSize ASCII characters. The array methods convert
+ * complete data including the last incomplete block, the streams convert data of any size with
+ * bounded memory. The codecs are immutable and can be shared between threads.
+ */
+public abstract class MyRadixCodec {
+	/**
+	 * @return Number of bytes of a block.
+	 */
+	public abstract int inputBlockSize();
+
+	/**
+	 * @return Number of characters of an encoded block.
+	 */
+	public abstract int outputBlockSize();
+
+	/**
+	 * Calculates the number of characters of len encoded bytes.
+	 * @param len Number of bytes.
+	 * @return Number of characters including padding.
+	 */
+	public abstract int encodedLength(int len);
+
+	/**
+	 * Calculates the number of bytes that len characters decode to.
+	 * @param src Encoded characters as ASCII bytes.
+	 * @param pos Start position of the characters.
+	 * @param len Number of characters.
+	 * @return Number of decoded bytes.
+	 */
+	public abstract int decodedLength(byte[] src, int pos, int len);
+
+	/**
+	 * Encodes len bytes of src and writes the ASCII characters to dst. The last incomplete
+	 * block is completed as defined by the encoding.
+	 * @param src Data to convert.
+	 * @param srcPos Start position in src.
+	 * @param len Number of bytes to convert.
+	 * @param dst Target array, must have space for encodedLength(len) characters.
+	 * @param dstPos Start position in dst.
+	 * @return Number of characters written.
+	 */
+	public abstract int encode(byte[] src, int srcPos, int len, byte[] dst, int dstPos);
+
+	/**
+	 * Decodes len characters of src and writes the bytes to dst.
+	 * @param src Encoded characters as ASCII bytes.
+	 * @param srcPos Start position in src.
+	 * @param len Number of characters to decode.
+	 * @param dst Target array, must have space for decodedLength(src, srcPos, len) bytes.
+	 * @param dstPos Start position in dst.
+	 * @return Number of bytes written.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public abstract int decode(byte[] src, int srcPos, int len, byte[] dst, int dstPos);
+
+	/**
+	 * Converts the given data and returns the ASCII characters in an exactly sized array.
+	 * @param data Data to convert.
+	 * @return Encoded ASCII characters.
+	 */
+	public byte[] encode(byte[] data) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] out = new byte[encodedLength(data.length)];
+			encode(data, 0, data.length, out, 0);
+			outSize = out.length;
+			return out;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.RADIX, true, data.length, outSize);
+		}
+	}
+
+	/**
+	 * Converts the given data and returns the encoded characters as String.
+	 * @param data Data to convert.
+	 * @return Encoded String.
+	 */
+	public String encodeToString(byte[] data) {
+		return new String(encode(data), StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Decodes the characters and returns the data in an exactly sized array.
+	 * @param src Encoded characters as ASCII bytes.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public byte[] decode(byte[] src) {
+		MyBase64Event event = MyBase64Metrics.begin();
+		long outSize = MyBase64Metrics.FAILED; // stays FAILED if the conversion throws
+		try {
+			byte[] out = new byte[decodedLength(src, 0, src.length)];
+			decode(src, 0, src.length, out, 0);
+			outSize = out.length;
+			return out;
+		} finally {
+			MyBase64Metrics.end(event, MyBase64Metrics.RADIX, false, src.length, outSize);
+		}
+	}
+
+	/**
+	 * Decodes the given String and returns the data.
+	 * @param src Encoded String.
+	 * @return Decoded data.
+	 * @throws MyBase64FormatException If src contains invalid characters or an incomplete block.
+	 */
+	public byte[] decode(String src) {
+		return decode(src.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Creates a stream which encodes all written bytes and passes the characters to out.
+	 * The last block is written on close().
+	 * @param out Stream which receives the encoded characters.
+	 * @return Encoding stream.
+	 */
+	public OutputStream encodingStream(OutputStream out) {
+		return new MyRadixOutputStream(this, out);
+	}
+
+	/**
+	 * Creates a stream which reads encoded characters from in and returns the decoded bytes.
+	 * @param in Stream which delivers the encoded characters.
+	 * @return Decoding stream.
+	 */
+	public InputStream decodingStream(InputStream in) {
+		return new MyRadixInputStream(this, in);
+	}
+
+	/**
+	 * Creates a decoding table for the given alphabet with 256 entries. Characters which are not
+	 * part of the alphabet hold -1. If the alphabet has no lower case letters, the lower case
+	 * letters are decoded like the upper case letters.
+	 * @param alphabet Characters of the encoding in the order of their values.
+	 * @return Decoding table.
+	 */
+	protected static byte[] buildDecoding(byte[] alphabet) {
+		byte[] decoding = new byte[256];
+		Arrays.fill(decoding, (byte)-1);
+		boolean lowerCase = false;
+		for (int i = 0; i < alphabet.length; i++) {
+			decoding[alphabet[i] & 0xff] = (byte)i;
+			lowerCase |= alphabet[i] >= 'a' && alphabet[i] <= 'z';
+		}
+		if (!lowerCase) {
+			for (char c = 'a'; c <= 'z'; c++) {
+				decoding[c] = decoding[c - 'a' + 'A'];
+			}
+		}
+		return decoding;
+	}
+}
@@ -0,0 +1,123 @@
+package bs7base64;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that reads characters of a radix encoding from the wrapped stream and returns
+ * the decoded bytes. Complete blocks are decoded as soon as they are read, the last incomplete
+ * block is decoded at the end of the wrapped stream. Created by MyRadixCodec.decodingStream.
+ */
+class MyRadixInputStream extends FilterInputStream {
+	private static final int BLOCKS = 2048; // number of blocks that are decoded at once
+
+	private final MyRadixCodec codec;
+	private final byte[] inBuffer; // characters which are not decoded yet
+	private int inCount = 0;
+	private final byte[] outBuffer;
+	private int outPos = 0;
+	private int outCount = 0;
+	private long charPos = 0; // position of inBuffer[0] in the wrapped stream (for error messages)
+	private boolean padded = false; // true if a block with padding was decoded, no more data may follow
+	private boolean eof = false;
+
+	MyRadixInputStream(MyRadixCodec codec, InputStream in) {
+		super(in);
+		this.codec = codec;
+		this.inBuffer = new byte[BLOCKS * codec.outputBlockSize()];
+		this.outBuffer = new byte[BLOCKS * codec.inputBlockSize()];
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (outPos == outCount) {
+			if (eof) {
+				return -1;
+			}
+			fill();
+		}
+		return outBuffer[outPos++] & 0xff; // no temporary array for a single byte
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (outPos == outCount) {
+			if (eof) {
+				return -1;
+			}
+			fill();
+		}
+		int n = Math.min(len, outCount - outPos);
+		System.arraycopy(outBuffer, outPos, b, off, n);
+		outPos += n;
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = 0;
+		while (skipped < n) { // the decoded bytes are dropped from the buffer, nothing is copied
+			if (outPos == outCount) {
+				if (eof) {
+					break;
+				}
+				fill();
+				continue;
+			}
+			int k = (int)Math.min(n - skipped, outCount - outPos);
+			outPos += k;
+			skipped += k;
+		}
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return outCount - outPos;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void fill() throws IOException {
+		outPos = 0;
+		outCount = 0;
+		int n = in.read(inBuffer, inCount, inBuffer.length - inCount);
+		if (n == -1) { // end of stream: the carried characters form the last block
+			if (padded && inCount > 0) {
+				throw new IOException("Data after padding at position " + charPos);
+			}
+			eof = true;
+			decode(inCount);
+			return;
+		}
+		if (padded && n > 0) {
+			throw new IOException("Data after padding at position " + (charPos + inCount));
+		}
+		inCount += n;
+		int full = inCount / codec.outputBlockSize() * codec.outputBlockSize();
+		decode(full);
+		int block = codec.outputBlockSize();
+		padded = full > 0 && codec.decodedLength(inBuffer, full - block, block) < codec.inputBlockSize(); // a complete block with padding
+		if (padded && inCount > full) { // characters read together with the padded block
+			throw new IOException("Data after padding at position " + (charPos + full));
+		}
+		System.arraycopy(inBuffer, full, inBuffer, 0, inCount - full);
+		inCount -= full;
+		charPos += full;
+	}
+
+	private void decode(int len) throws IOException {
+		try {
+			outCount = codec.decode(inBuffer, 0, len, outBuffer, 0);
+		} catch (MyBase64FormatException e) {
+			throw new IOException(e.withOffset(charPos).getMessage(), e);
+		}
+	}
+}
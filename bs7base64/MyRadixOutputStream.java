@@ -0,0 +1,95 @@
+package bs7base64;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that encodes all written bytes with a radix codec and passes the characters
+ * to the wrapped stream. The bytes are collected until complete blocks can be encoded, the
+ * last incomplete block is encoded on close(). Created by MyRadixCodec.encodingStream.
+ */
+class MyRadixOutputStream extends FilterOutputStream {
+	private static final int BLOCKS = 2048; // number of blocks that are encoded at once
+
+	private final MyRadixCodec codec;
+	private final byte[] inBuffer; // bytes which are not encoded yet
+	private int inCount = 0;
+	private final byte[] outBuffer;
+	private boolean closed = false;
+
+	MyRadixOutputStream(MyRadixCodec codec, OutputStream out) {
+		super(out);
+		this.codec = codec;
+		this.inBuffer = new byte[BLOCKS * codec.inputBlockSize()];
+		this.outBuffer = new byte[BLOCKS * codec.outputBlockSize()];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		inBuffer[inCount++] = (byte)b; // no temporary array for a single byte
+		if (inCount == inBuffer.length) {
+			out.write(outBuffer, 0, codec.encode(inBuffer, 0, inCount, outBuffer, 0));
+			inCount = 0;
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		while (len > 0) {
+			if (inCount == 0 && len >= inBuffer.length) { // a full buffer is encoded directly from the array of the caller
+				out.write(outBuffer, 0, codec.encode(b, off, inBuffer.length, outBuffer, 0));
+				off += inBuffer.length;
+				len -= inBuffer.length;
+				continue;
+			}
+			int n = Math.min(len, inBuffer.length - inCount);
+			System.arraycopy(b, off, inBuffer, inCount, n);
+			inCount += n;
+			off += n;
+			len -= n;
+			if (inCount == inBuffer.length) { // the buffer holds complete blocks only
+				out.write(outBuffer, 0, codec.encode(inBuffer, 0, inCount, outBuffer, 0));
+				inCount = 0;
+			}
+		}
+	}
+
+	/**
+	 * Encodes and flushes all complete blocks. An incomplete block can not be written before
+	 * the stream is closed, because it would be encoded as the last block.
+	 */
+	@Override
+	public void flush() throws IOException {
+		int full = inCount / codec.inputBlockSize() * codec.inputBlockSize();
+		if (full > 0) {
+			out.write(outBuffer, 0, codec.encode(inBuffer, 0, full, outBuffer, 0));
+			System.arraycopy(inBuffer, full, inBuffer, 0, inCount - full);
+			inCount -= full;
+		}
+		out.flush();
+	}
+
+	/**
+	 * Encodes the remaining bytes including the last incomplete block and closes the wrapped stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			out.write(outBuffer, 0, codec.encode(inBuffer, 0, inCount, outBuffer, 0));
+			inCount = 0;
+		} finally {
+			out.close();
+		}
+	}
+}